@@ -33,6 +33,8 @@ public class Camp {
 
     private final @Nonnull Player player;
     private final @Nonnull Properties properties;
+    private final int serial;
+    private final @Nonnull String id;
 
     private @Nonnull Vector2D position = Vector2D.ZERO;
 
@@ -46,6 +48,8 @@ public class Camp {
     public Camp(@Nonnull Player player, @Nonnull Properties properties) {
         this.player = player;
         this.properties = properties;
+        this.serial = player.getGame().register(this);
+        this.id = Integer.toString(serial);
 
         player.setCamp(this);
         player.getGame().getCamps().add(this);
@@ -118,4 +122,19 @@ public class Camp {
     public void setPosition(@Nonnull Vector2D position) {
         this.position = position;
     }
+
+    /**
+     * @return the id of the camp, unique inside its game
+     */
+    public int getId() {
+        return serial;
+    }
+
+    /**
+     * @return the id of the camp as it is sent over the api
+     */
+    @Override
+    public String toString() {
+        return id;
+    }
 }
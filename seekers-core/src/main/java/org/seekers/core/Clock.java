@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Decides when the next tick of a game starts. The clock thread of {@link Game#play()} updates the game and then waits
+ * for the clock before it starts the next tick.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@FunctionalInterface
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public interface Clock {
+
+    /**
+     * Blocks until the next tick of the game may start.
+     *
+     * @param game the game that finished a tick
+     * @throws InterruptedException if the clock thread was interrupted while waiting
+     */
+    void await(@Nonnull Game game) throws InterruptedException;
+
+    /**
+     * @return a clock that waits for the tick duration of the game
+     */
+    @Nonnull
+    static Clock fixed() {
+        return game -> {
+            double duration = game.getProperties().getTickDuration();
+            Thread.sleep((long) duration, (int) ((duration - (long) duration) * 1e6));
+        };
+    }
+}
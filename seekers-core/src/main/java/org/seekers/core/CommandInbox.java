@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collects the commands for the seekers of a game from any number of threads. The commands are applied by the game at
+ * the start of the next tick, so seekers never change while a tick is running and all commands of a tick are applied
+ * in a well-defined order. If a seeker received several commands since the last tick, only the latest one is applied.
+ * <p>
+ * Offering a command is lock-free: commands are pushed onto a linked stack with a single compare-and-set, and the
+ * game takes the whole stack at once. Every player may have at most {@value #PENDING_PER_SEEKER} pending commands per
+ * seeker, further commands are rejected until the next tick, so a client that floods commands cannot grow the stack
+ * without bounds.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class CommandInbox {
+
+    public static final int PENDING_PER_SEEKER = 16;
+
+    private static final class Node {
+        final @Nonnull Seeker seeker;
+        final @Nonnull Vector2D target;
+        final double magnet;
+        @Nullable Node next;
+
+        Node(@Nonnull Seeker seeker, @Nonnull Vector2D target, double magnet) {
+            this.seeker = seeker;
+            this.target = target;
+            this.magnet = magnet;
+        }
+    }
+
+    private final @Nonnull Game game;
+    private final @Nonnull AtomicReference<Node> head = new AtomicReference<>();
+    private final @Nonnull Map<Player, AtomicInteger> pending = new ConcurrentHashMap<>();
+
+    // Only used by the game while draining
+    private int[] stamps = new int[0];
+    private int drains = 0;
+
+    CommandInbox(@Nonnull Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Offers a command for a seeker. Can be called from any thread.
+     *
+     * @param seeker the seeker
+     * @param target the new target of the seeker
+     * @param magnet the new magnet of the seeker
+     * @return false if the command was rejected because the player of the seeker has too many pending commands
+     */
+    public boolean offer(@Nonnull Seeker seeker, @Nonnull Vector2D target, double magnet) {
+        Player player = seeker.getPlayer();
+        AtomicInteger count = pending.computeIfAbsent(player, p -> new AtomicInteger());
+        if (count.incrementAndGet() > PENDING_PER_SEEKER * Math.max(player.getSeekers().size(), 1)) {
+            count.decrementAndGet();
+            return false;
+        }
+        Node node = new Node(seeker, target, magnet);
+        Node next;
+        do {
+            next = head.get();
+            node.next = next;
+        } while (!head.compareAndSet(next, node));
+        return true;
+    }
+
+    /**
+     * Applies the latest valid command of every seeker since the last drain. Commands for seekers of other games and
+     * commands with values that are not finite are dropped, an earlier valid command of the same seeker is applied
+     * instead. The latest valid command is skipped if it does not change the seeker.
+     *
+     * @return the number of commands that changed a seeker
+     */
+    int drain() {
+        Node node = head.getAndSet(null);
+        if (node == null) return 0;
+        if (stamps.length < game.getSerials()) stamps = Arrays.copyOf(stamps, game.getSerials());
+        drains++;
+        int applied = 0;
+        // The stack holds the latest command first
+        for (; node != null; node = node.next) {
+            Seeker seeker = node.seeker;
+            pending.get(seeker.getPlayer()).decrementAndGet();
+            if (seeker.getGame() != game || stamps[seeker.getSerial()] == drains) continue;
+            if (!Double.isFinite(node.target.getX()) || !Double.isFinite(node.target.getY())
+                    || !Double.isFinite(node.magnet)) continue;
+            stamps[seeker.getSerial()] = drains;
+            if (seeker.getMagnet() == node.magnet && seeker.getTarget().getX() == node.target.getX()
+                    && seeker.getTarget().getY() == node.target.getY()) continue;
+            seeker.changeTarget(node.target);
+            seeker.changeMagnet(node.magnet);
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * @return true if there are no commands waiting for the next tick
+     */
+    public boolean isEmpty() {
+        return head.get() == null;
+    }
+}
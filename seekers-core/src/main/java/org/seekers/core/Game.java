@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.function.Consumer;
 
 /**
@@ -44,7 +45,19 @@ public class Game {
     }
 
     public static Game create(Ini config) {
-        Game game = new Game(Game.Properties.from(config), new Torus(Torus.Properties.from(config)));
+        return create(config, new Random().nextLong());
+    }
+
+    /**
+     * Creates a new game from the config. Games that are created from the same config and seed start in the same
+     * state and stay in the same state as long as they receive the same commands at the same ticks.
+     *
+     * @param config the config
+     * @param seed   the seed of the random generator
+     * @return the new game
+     */
+    public static Game create(Ini config, long seed) {
+        Game game = new Game(Game.Properties.from(config), new Torus(Torus.Properties.from(config)), seed);
         Goal.Properties goals = Goal.Properties.from(config);
         for (int i = 0; i < game.getProperties().getGoals(); i++) {
             new Goal(game, goals);
@@ -67,10 +80,24 @@ public class Game {
     private final @Nonnull List<Entity> entities = new ArrayList<>();
     private final @Nonnull Properties properties;
     private final @Nonnull Torus torus;
+    private final @Nonnull Random random;
+    private final long seed;
 
     // Game state
     private @Nonnull State state = State.PREPARING;
-    private long tick = 0;
+    // Read by the threads of the clients, e.g. to clamp their responses to the current tick
+    private volatile long tick = 0;
+
+    // Incremental hash of the simulation state
+    private final @Nonnull StateHash hash = new StateHash();
+    // Identified objects of this game, indexed by their id
+    private final @Nonnull List<Object> identified = new ArrayList<>();
+
+    // Commands for the next tick
+    private final @Nonnull CommandInbox inbox = new CommandInbox(this);
+    private @Nonnull Clock clock = Clock.fixed();
+    // Event of the running tick, only set while a flight recording enables it
+    private @Nullable TickEvent event;
 
     // Cached types for fast access
     private final @Nonnull List<Player> players = new ArrayList<>();
@@ -80,6 +107,8 @@ public class Game {
 
     // Events
     private @Nullable Consumer<Game> onGameStarted;
+    private @Nullable Consumer<Game> onGameTicking;
+    private @Nullable Consumer<Game> onGameTicked;
     private @Nullable Consumer<Game> onGameFinished;
 
     /**
@@ -87,8 +116,17 @@ public class Game {
      * game rendering components, and starts the game timeline.
      */
     public Game(@Nonnull Properties properties, @Nonnull Torus torus) {
+        this(properties, torus, new Random().nextLong());
+    }
+
+    /**
+     * Constructs a new Game object with a seeded random generator.
+     */
+    public Game(@Nonnull Properties properties, @Nonnull Torus torus, long seed) {
         this.properties = properties;
         this.torus = torus;
+        this.random = new Random(seed);
+        this.seed = seed;
     }
 
     /**
@@ -143,30 +181,54 @@ public class Game {
         }
     }
 
+    /**
+     * Applies the commands of the {@link #getInbox() inbox}, updates all entities in the order of their creation and
+     * advances the game by one tick. The simulation only depends on the seed and on the targets and magnets of the
+     * seekers at the start of each tick, so it is deterministic as long as commands are not changed while the tick is
+     * running.
+     */
     public void updateAll() {
-        for (Entity entity : List.copyOf(getEntities())) {
+        if (TickEvent.TYPE.isEnabled()) {
+            event = new TickEvent();
+            event.begin();
+        }
+        int commands = inbox.drain();
+        if (getOnGameTicking() != null)
+            getOnGameTicking().accept(this);
+        List<Entity> entities = List.copyOf(getEntities());
+        for (Entity entity : entities) {
             entity.update();
         }
         ++tick;
+        if (event != null) {
+            event.tick = tick;
+            event.entities = entities.size();
+            event.commands = commands;
+            event.commit();
+            event = null;
+        }
+        if (getOnGameTicked() != null)
+            getOnGameTicked().accept(this);
         if (tick >= getProperties().getPlaytime()) {
             setGameState(State.FINISHED);
         }
     }
 
+    /**
+     * Starts the game on its own clock thread. The thread updates the game and waits for the {@link #getClock() clock}
+     * before the next tick until the playtime is over.
+     */
     public void play() {
         setGameState(State.RUNNING);
         Thread clock = new Thread() {
             @Override
             public void run() {
                 while (getPassedPlaytime() < getProperties().getPlaytime()) {
-                    synchronized (this) {
-                        updateAll();
-                        try {
-                            wait((long) getProperties().getTickDuration(),
-                                    (int) (getProperties().getTickDuration() - Math.round(getProperties().getTickDuration())));
-                        } catch (InterruptedException ex) {
-                            interrupt();
-                        }
+                    updateAll();
+                    try {
+                        getClock().await(Game.this);
+                    } catch (InterruptedException ex) {
+                        interrupt();
                     }
                 }
             }
@@ -223,6 +285,114 @@ public class Game {
         return tick;
     }
 
+    /**
+     * Returns the rolling hash of the simulation state. It covers the positions and velocities of all physicals, the
+     * magnets of all seekers and the scores of all players. The hash is updated whenever one of these fields changes,
+     * so reading it after a tick gives the hash of that tick without any rehashing. Two games with the same config and
+     * the same history produce the same hash, which makes it suitable for desync and determinism checks.
+     *
+     * @return the hash of the current state
+     */
+    public long getStateHash() {
+        return hash.get();
+    }
+
+    @Nonnull
+    StateHash getHash() {
+        return hash;
+    }
+
+    /**
+     * Restores the passed playtime and the state hash of a replayed game.
+     */
+    void restore(long tick, long stateHash) {
+        this.tick = tick;
+        hash.set(stateHash);
+    }
+
+    /**
+     * Registers an object of this game and returns its id. Ids are compact, they count up from zero in the order the
+     * objects are created, so they can be used as array indices.
+     *
+     * @param object the new object
+     * @return the id of the object
+     */
+    int register(@Nonnull Object object) {
+        identified.add(object);
+        return identified.size() - 1;
+    }
+
+    /**
+     * @return the number of ids given out so far
+     */
+    int getSerials() {
+        return identified.size();
+    }
+
+    /**
+     * Finds a seeker by its id with a single array lookup.
+     *
+     * @param id the id of the seeker
+     * @return the seeker, or null if there is no seeker with the id
+     */
+    @Nullable
+    public Seeker getSeeker(int id) {
+        if (id < 0 || id >= identified.size()) return null;
+        Object object = identified.get(id);
+        return object instanceof Seeker ? (Seeker) object : null;
+    }
+
+    /**
+     * Finds a seeker by the string form of its id, as it is sent over the api. The id is parsed without allocating.
+     *
+     * @param id the id of the seeker
+     * @return the seeker, or null if the id is not the id of a seeker
+     */
+    @Nullable
+    public Seeker getSeeker(@Nonnull String id) {
+        if (id.isEmpty() || id.length() > 9) return null;
+        int value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') return null;
+            value = value * 10 + (c - '0');
+        }
+        return getSeeker(value);
+    }
+
+    /**
+     * @return the event of the running tick, or null if no flight recording enables it
+     */
+    @Nullable
+    TickEvent getTickEvent() {
+        return event;
+    }
+
+    @Nonnull
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock that decides when the next tick starts. Must be set before the game is played.
+     *
+     * @param clock the clock, by default the game waits for its tick duration
+     */
+    public void setClock(@Nonnull Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the inbox for commands from other threads. Commands in the inbox are applied at the start of the next
+     * tick.
+     *
+     * @return the inbox of the game
+     */
+    @Nonnull
+    public CommandInbox getInbox() {
+        return inbox;
+    }
+
     @Nonnull
     public Properties getProperties() {
         return properties;
@@ -234,6 +404,21 @@ public class Game {
         return torus;
     }
 
+    /**
+     * @return the random generator of the simulation
+     */
+    @Nonnull
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * @return the seed of the random generator
+     */
+    public long getSeed() {
+        return seed;
+    }
+
     @CheckReturnValue
     @Nonnull
     public State getGameState() {
@@ -258,6 +443,36 @@ public class Game {
         return onGameStarted;
     }
 
+    /**
+     * Adds a listener that is called at the start of every tick, before any entity is updated.
+     *
+     * @param onGameTicking the listener
+     */
+    public void setOnGameTicking(@Nonnull Consumer<Game> onGameTicking) {
+        this.onGameTicking = getOnGameTicking() != null ?
+                getOnGameTicking().andThen(onGameTicking) : onGameTicking;
+    }
+
+    @Nullable
+    public Consumer<Game> getOnGameTicking() {
+        return onGameTicking;
+    }
+
+    /**
+     * Adds a listener that is called after every tick, before the game is finished by the last tick.
+     *
+     * @param onGameTicked the listener
+     */
+    public void setOnGameTicked(@Nonnull Consumer<Game> onGameTicked) {
+        this.onGameTicked = getOnGameTicked() != null ?
+                getOnGameTicked().andThen(onGameTicked) : onGameTicked;
+    }
+
+    @Nullable
+    public Consumer<Game> getOnGameTicked() {
+        return onGameTicked;
+    }
+
     public void setOnGameFinished(@Nonnull Consumer<Game> onGameFinished) {
         this.onGameFinished = getOnGameFinished() != null ?
                 getOnGameFinished().andThen(onGameFinished) : onGameFinished;
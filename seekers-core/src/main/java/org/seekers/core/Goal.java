@@ -76,7 +76,10 @@ public class Goal extends Physical<Goal.Properties> {
     @Override
     public void update() {
         super.update();
+        TickEvent event = getGame().getTickEvent();
+        long start = event != null ? System.nanoTime() : 0;
         adopt();
+        if (event != null) event.adopt += System.nanoTime() - start;
     }
 
     @Override
@@ -122,7 +125,7 @@ public class Goal extends Physical<Goal.Properties> {
      * Resets the state of the Goal object.
      */
     protected void reset() {
-        setPosition(getGame().getTorus().getRandomPosition());
+        setPosition(getGame().getTorus().getRandomPosition(getGame().getRandom()));
         capture = null;
         setTimeOwned(0);
     }
@@ -147,4 +150,12 @@ public class Goal extends Physical<Goal.Properties> {
     public Camp getCapture() {
         return capture;
     }
+
+    /**
+     * Restores the capture and the time owned of a replayed goal.
+     */
+    void restore(@Nullable Camp capture, int timeOwned) {
+        this.capture = capture;
+        setTimeOwned(timeOwned);
+    }
 }
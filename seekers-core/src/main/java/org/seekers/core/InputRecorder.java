@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillClose;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Records the inputs of a match instead of its states. The recording holds the seed and the config of the game and
+ * the targets and magnets of all seekers that changed since the previous tick. Games are deterministic for a given
+ * seed and config, so {@link InputReplay} rebuilds the match by simulating it again. Most ticks do not change any
+ * input, and the whole stream is deflated, so a recording takes only a few kilobytes.
+ * <p>
+ * Inputs are sampled at the start of every tick. A command that changes a seeker while a tick is running is recorded
+ * for the next tick.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class InputRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x534B5243;
+    static final byte VERSION = 1;
+    static final short END = -1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final @Nonnull Game game;
+    private final @Nonnull String config;
+    private final @Nonnull DataOutputStream output;
+    private final @Nonnull Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+    // Inputs of the previous tick
+    private final @Nonnull double[] targets;
+    private final @Nonnull double[] magnets;
+    private final @Nonnull int[] changes;
+
+    private long ticks = 0;
+    private boolean closed = false;
+    private @Nullable IOException failure;
+
+    /**
+     * Creates a new recorder and subscribes it to the ticks of the game. It must be created before any seeker of the
+     * game receives a command.
+     *
+     * @param game   the recorded game
+     * @param config the config the game was created from
+     * @param path   the file of the recording
+     * @throws IOException if the file could not be opened
+     */
+    public InputRecorder(@Nonnull Game game, @Nonnull Ini config, @Nonnull Path path) throws IOException {
+        this.game = game;
+        StringWriter writer = new StringWriter();
+        config.store(writer);
+        this.config = writer.toString();
+
+        List<Seeker> seekers = game.getSeekers();
+        this.targets = new double[seekers.size() * 2];
+        this.magnets = new double[seekers.size()];
+        this.changes = new int[seekers.size()];
+        for (int i = 0; i < seekers.size(); i++) {
+            targets[2 * i] = seekers.get(i).getTarget().getX();
+            targets[2 * i + 1] = seekers.get(i).getTarget().getY();
+            magnets[i] = seekers.get(i).getMagnet();
+        }
+        this.output = new DataOutputStream(new DeflaterOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)), deflater, BUFFER_SIZE));
+
+        game.setOnGameTicking(g -> record());
+    }
+
+    private synchronized void record() {
+        if (closed || failure != null) return;
+        try {
+            if (ticks == 0) header();
+            inputs();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void header() throws IOException {
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeLong(game.getSeed());
+        writeString(config);
+        output.writeShort(game.getSeekers().size());
+        output.writeShort(game.getPlayers().size());
+        for (Player player : game.getPlayers()) {
+            writeString(player.getName());
+            writeString(player.getColor());
+        }
+    }
+
+    private void inputs() throws IOException {
+        List<Seeker> seekers = game.getSeekers();
+        int count = 0;
+        for (int i = 0; i < seekers.size(); i++) {
+            Seeker seeker = seekers.get(i);
+            Vector2D target = seeker.getTarget();
+            if (target.getX() != targets[2 * i] || target.getY() != targets[2 * i + 1]
+                    || seeker.getMagnet() != magnets[i]) {
+                targets[2 * i] = target.getX();
+                targets[2 * i + 1] = target.getY();
+                magnets[i] = seeker.getMagnet();
+                changes[count++] = i;
+            }
+        }
+        output.writeShort(count);
+        for (int j = 0; j < count; j++) {
+            int i = changes[j];
+            output.writeShort(i);
+            output.writeDouble(targets[2 * i]);
+            output.writeDouble(targets[2 * i + 1]);
+            output.writeDouble(magnets[i]);
+        }
+        ticks++;
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * @return the number of recorded ticks
+     */
+    public synchronized long getRecordedTicks() {
+        return ticks;
+    }
+
+    /**
+     * Writes the final tick and state hash, which are used to verify a replay, and closes the file.
+     *
+     * @throws IOException if the recording failed or the file could not be written
+     */
+    @WillClose
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (failure == null && ticks > 0) {
+                output.writeShort(END);
+                output.writeLong(game.getPassedPlaytime());
+                output.writeLong(game.getStateHash());
+            }
+            output.close();
+        } catch (IOException e) {
+            if (failure == null) failure = e;
+        } finally {
+            deflater.end();
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Rebuilds a match from a recording of an {@link InputRecorder} by simulating it again. The recorded final tick and
+ * state hash tell if the simulation reproduced the original match.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class InputReplay {
+
+    // Seeker index, target and magnet of an input
+    private static final int INPUT_SIZE = Short.BYTES + 3 * Double.BYTES;
+    private static final int TRAILER_SIZE = Short.BYTES + 2 * Long.BYTES;
+
+    private final @Nonnull Path path;
+    private final @Nonnull ByteBuffer buffer;
+    private final @Nonnull Ini config;
+    private final @Nonnull List<String> names = new ArrayList<>();
+    private final @Nonnull List<String> colors = new ArrayList<>();
+    private final long seed;
+    private final int seekers;
+    private final int start;
+    private final int end;
+
+    /**
+     * Reads the recording and its header, and finds the end marker by skipping over the recorded ticks.
+     *
+     * @param path the file of the recording
+     * @throws IOException if the file could not be read or is not an input recording
+     */
+    public InputReplay(@Nonnull Path path) throws IOException {
+        this.path = path;
+        try (InputStream input = new InflaterInputStream(Files.newInputStream(path))) {
+            buffer = ByteBuffer.wrap(input.readAllBytes());
+        }
+        try {
+            if (buffer.getInt() != InputRecorder.MAGIC) throw new IOException("Not an input recording: " + path);
+            if (buffer.get() != InputRecorder.VERSION) throw new IOException("Unsupported recording version: " + path);
+            seed = buffer.getLong();
+            config = new Ini(new StringReader(getString()));
+            seekers = buffer.getShort();
+            int players = buffer.getShort();
+            for (int i = 0; i < players; i++) {
+                names.add(getString());
+                colors.add(getString());
+            }
+            start = buffer.position();
+            end = findEnd();
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted input recording: " + path, e);
+        }
+    }
+
+    /**
+     * @return the position of the end marker, or -1 if the recording has none or it is not followed by the trailer
+     */
+    private int findEnd() {
+        int position = start;
+        while (position + Short.BYTES <= buffer.limit()) {
+            short count = buffer.getShort(position);
+            if (count == InputRecorder.END) return buffer.limit() - position == TRAILER_SIZE ? position : -1;
+            if (count < 0) return -1;
+            position += Short.BYTES + count * INPUT_SIZE;
+        }
+        return -1;
+    }
+
+    private String getString() {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Simulates the recorded match in a headless game.
+     *
+     * @return the game after the last recorded tick
+     * @see #simulate(BiFunction)
+     */
+    @Nonnull
+    public Game simulate() {
+        return simulate(Game::create);
+    }
+
+    /**
+     * Creates a game with the recorded config and seed and simulates the recorded match. The recorded inputs are
+     * applied at the start of every tick, just as they were sampled.
+     *
+     * @param creator creates a game from a config and a seed
+     * @param <G>     type of the game
+     * @return the game after the last recorded tick
+     * @throws IllegalArgumentException if the created game does not match the recording
+     */
+    @Nonnull
+    public <G extends Game> G simulate(@Nonnull BiFunction<Ini, Long, G> creator) {
+        G game = creator.apply(config, seed);
+        List<Seeker> list = game.getSeekers();
+        if (list.size() != seekers || game.getPlayers().size() != names.size())
+            throw new IllegalArgumentException("Game does not match the recording");
+        for (int i = 0; i < names.size(); i++) {
+            game.getPlayers().get(i).setName(names.get(i));
+            game.getPlayers().get(i).setColor(colors.get(i));
+        }
+        game.setGameState(State.RUNNING);
+
+        buffer.position(start);
+        while (buffer.remaining() >= Short.BYTES) {
+            short count = buffer.getShort();
+            if (count == InputRecorder.END) break;
+            for (int j = 0; j < count; j++) {
+                Seeker seeker = list.get(buffer.getShort());
+                seeker.setTarget(new Vector2D(buffer.getDouble(), buffer.getDouble()));
+                seeker.setMagnet(buffer.getDouble());
+            }
+            game.updateAll();
+        }
+        return game;
+    }
+
+    /**
+     * Checks if a simulated game reproduced the recorded match.
+     *
+     * @param game the simulated game
+     * @return true if the tick and the state hash match the end of the recording
+     * @throws IOException if the recording has no end
+     */
+    @CheckReturnValue
+    public boolean matches(@Nonnull Game game) throws IOException {
+        return game.getPassedPlaytime() == getTicks() && game.getStateHash() == getStateHash();
+    }
+
+    /**
+     * @return the recorded final tick
+     * @throws IOException if the recording has no end
+     */
+    public long getTicks() throws IOException {
+        return buffer.getLong(trailer());
+    }
+
+    /**
+     * @return the recorded state hash of the final tick
+     * @throws IOException if the recording has no end
+     */
+    public long getStateHash() throws IOException {
+        return buffer.getLong(trailer() + Long.BYTES);
+    }
+
+    /**
+     * @return the position of the final tick and state hash after the end marker
+     */
+    private int trailer() throws IOException {
+        if (end < 0) throw new IOException("Input recording has no end, it is truncated, still written or failed: "
+                + path);
+        return end + Short.BYTES;
+    }
+
+    @Nonnull
+    public Ini getConfig() {
+        return config;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Nonnull
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    @Nonnull
+    public List<String> getColors() {
+        return Collections.unmodifiableList(colors);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A clock that runs the game in lockstep with its players. The next tick starts as soon as every joined player sent
+ * commands for the current tick, or once the deadline expired. Fast players therefore speed up the game, while a slow
+ * or stuck player can only hold it back until the deadline. The clock records how long every player took to respond.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class LockstepClock implements Clock {
+
+    private static final class Participant {
+        final @Nonnull Latency latency = new Latency();
+        long tick = -1;
+        long arrival;
+    }
+
+    private final @Nonnull Properties properties;
+    private final @Nonnull ReentrantLock lock = new ReentrantLock();
+    private final @Nonnull Condition arrived = lock.newCondition();
+    private final @Nonnull Map<Player, Participant> participants = new LinkedHashMap<>();
+
+    public LockstepClock(@Nonnull Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Adds a player that the clock waits for. Players that did not join are never waited for.
+     *
+     * @param player the player
+     */
+    public void join(@Nonnull Player player) {
+        lock.lock();
+        try {
+            participants.putIfAbsent(player, new Participant());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Notes that the player sent its commands for a tick. Can be called from any thread. The tick is clamped to the
+     * current tick of the game, as no player can know a later state, and a missing tick counts as the current one.
+     *
+     * @param player  the player
+     * @param tick    the tick of the last state the player knows, or 0 if the player did not send it
+     * @param current the current tick of the game
+     */
+    public void arrive(@Nonnull Player player, long tick, long current) {
+        long known = tick <= 0 ? current : Math.min(tick, current);
+        lock.lock();
+        try {
+            Participant participant = participants.get(player);
+            if (participant == null || known <= participant.tick) return;
+            participant.tick = known;
+            participant.arrival = System.nanoTime();
+            arrived.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until all joined players sent commands for the current tick of the game or the deadline expired. Players
+     * that responded in time are recorded with their latency, all others with a miss.
+     */
+    @Override
+    public void await(@Nonnull Game game) throws InterruptedException {
+        long tick = game.getPassedPlaytime();
+        long start = System.nanoTime();
+        long remaining = TimeUnit.MICROSECONDS.toNanos(Math.round(properties.getDeadline() * 1000));
+        lock.lockInterruptibly();
+        try {
+            while (remaining > 0 && (participants.isEmpty() || !isComplete(tick))) {
+                remaining = arrived.awaitNanos(remaining);
+            }
+            for (Participant participant : participants.values()) {
+                if (participant.tick >= tick) {
+                    participant.latency.arrive(Math.max(0, participant.arrival - start));
+                } else {
+                    participant.latency.miss();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isComplete(long tick) {
+        for (Participant participant : participants.values()) {
+            if (participant.tick < tick) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param player the player
+     * @return a copy of the latency of the player, or null if the player did not join
+     */
+    @Nullable
+    public Latency getLatency(@Nonnull Player player) {
+        lock.lock();
+        try {
+            Participant participant = participants.get(player);
+            return participant != null ? participant.latency.copy() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Nonnull
+    public Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Response times of a player. A tick counts as a miss if the player did not respond before the deadline.
+     */
+    public static final class Latency {
+        private long arrivals;
+        private long misses;
+        private long total;
+        private long max;
+
+        private void arrive(long nanos) {
+            arrivals++;
+            total += nanos;
+            max = Math.max(max, nanos);
+        }
+
+        private void miss() {
+            misses++;
+        }
+
+        private Latency copy() {
+            Latency copy = new Latency();
+            copy.arrivals = arrivals;
+            copy.misses = misses;
+            copy.total = total;
+            copy.max = max;
+            return copy;
+        }
+
+        /**
+         * @return the number of ticks the player responded to in time
+         */
+        public long getArrivals() {
+            return arrivals;
+        }
+
+        /**
+         * @return the number of ticks the player did not respond to in time
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the average latency of all responses in time in milliseconds
+         */
+        public double getAverage() {
+            return arrivals > 0 ? total / 1e6 / arrivals : 0;
+        }
+
+        /**
+         * @return the highest latency of all responses in time in milliseconds
+         */
+        public double getMax() {
+            return max / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d in time (avg %.2f ms, max %.2f ms), %d missed", arrivals, getAverage(), getMax(),
+                    misses);
+        }
+    }
+
+    /**
+     * Properties of the lockstep clock.
+     */
+    public static class Properties {
+
+        public static final String SECTION = "lockstep";
+
+        public static Properties from(Ini ini) {
+            Boolean enabled = ini.fetch(SECTION, "enabled", Boolean.class);
+            Double deadline = ini.fetch(SECTION, "deadline", Double.class);
+            return new Properties(
+                    enabled != null && enabled,
+                    deadline != null ? deadline : 100.0
+            );
+        }
+
+        private final boolean enabled;
+        private final double deadline;
+
+        public Properties(boolean enabled, double deadline) {
+            this.enabled = enabled;
+            this.deadline = Util.checkPositive(deadline);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return the time in milliseconds the clock waits for the players before it starts the next tick
+         */
+        public double getDeadline() {
+            return deadline;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillClose;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records a match into a compact binary file. The recorder subscribes to the ticks of a game and writes one frame per
+ * tick, the first one is a keyframe of the initial state at tick 0 that is written when the game starts. Positions, velocities and magnets are quantized to fixed point numbers. Every frame stores these values as
+ * zigzag varints, either absolute in a keyframe or as the difference to the previous tick in a delta frame. Keyframes
+ * are written periodically, so a reader can start decoding at any keyframe.
+ * <p>
+ * The file starts with a header that holds the config and the names and colors of all players. It is followed by the
+ * frames and closed by an index of all keyframes, see {@link MatchReplay} for reading a recording.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class MatchRecorder implements AutoCloseable {
+
+    // File layout
+    static final int MAGIC = 0x534B5250;
+    static final int INDEX_MAGIC = 0x534B5249;
+    static final byte VERSION = 1;
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+    static final byte INDEX = 3;
+    static final int FOOTER_SIZE = Long.BYTES + Integer.BYTES;
+
+    // Quantization steps per unit
+    static final double POSITION_SCALE = 64.0;
+    static final double VELOCITY_SCALE = 1024.0;
+    static final double MAGNET_SCALE = 1024.0;
+
+    // Recorded values per entity
+    static final int SEEKER_VALUES = 6;
+    static final int GOAL_VALUES = 6;
+    static final int PLAYER_VALUES = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final @Nonnull Game game;
+    private final @Nonnull String config;
+    private final @Nonnull Properties properties;
+    private final @Nonnull FileChannel channel;
+    private final @Nonnull ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final @Nonnull ByteBuffer frame;
+    private final @Nonnull List<long[]> keyframes = new ArrayList<>();
+
+    private @Nonnull long[] previous;
+    private @Nonnull long[] current;
+    private long written = 0;
+    private long frames = 0;
+    private boolean closed = false;
+    private @Nullable IOException failure;
+
+    /**
+     * Creates a new recorder and subscribes it to the start and the ticks of the game. The file is created or
+     * truncated immediately, the header is written with the initial state when the game starts, as the players are
+     * named by then. If the game already runs, the recording starts with the next tick instead.
+     *
+     * @param game   the recorded game
+     * @param config the config the game was created from
+     * @param path   the file of the recording
+     * @throws IOException if the file could not be opened
+     */
+    public MatchRecorder(@Nonnull Game game, @Nonnull Ini config, @Nonnull Path path) throws IOException {
+        this.game = game;
+        this.properties = Properties.from(config);
+        StringWriter writer = new StringWriter();
+        config.store(writer);
+        this.config = writer.toString();
+
+        int values = game.getSeekers().size() * SEEKER_VALUES + game.getGoals().size() * GOAL_VALUES
+                + game.getPlayers().size() * PLAYER_VALUES;
+        this.previous = new long[values];
+        this.current = new long[values];
+        this.frame = ByteBuffer.allocate(2 * Codec.MAX_VARINT_SIZE + Long.BYTES + values * Codec.MAX_VARINT_SIZE);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        game.setOnGameStarted(g -> record());
+        game.setOnGameTicked(g -> record());
+    }
+
+    /**
+     * Properties of the recorder.
+     */
+    public static class Properties {
+
+        public static final String SECTION = "recorder";
+
+        public static Properties from(Ini ini) {
+            Boolean enabled = ini.fetch(SECTION, "enabled", Boolean.class);
+            Boolean inputs = ini.fetch(SECTION, "inputs", Boolean.class);
+            String folder = ini.fetch(SECTION, "folder");
+            Integer keyframeInterval = ini.fetch(SECTION, "keyframe-interval", Integer.class);
+            return new Properties(
+                    enabled != null && enabled,
+                    inputs != null && inputs,
+                    folder != null ? folder : "recordings",
+                    keyframeInterval != null ? keyframeInterval : 100
+            );
+        }
+
+        private final boolean enabled;
+        private final boolean inputs;
+        private final @Nonnull String folder;
+        private final int keyframeInterval;
+
+        public Properties(boolean enabled, boolean inputs, @Nonnull String folder, int keyframeInterval) {
+            this.enabled = enabled;
+            this.inputs = inputs;
+            this.folder = folder;
+            this.keyframeInterval = Util.checkPositive(keyframeInterval);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return true if the inputs of every match should be recorded by an {@link InputRecorder}
+         */
+        public boolean isRecordingInputs() {
+            return inputs;
+        }
+
+        @Nonnull
+        public String getFolder() {
+            return folder;
+        }
+
+        public int getKeyframeInterval() {
+            return keyframeInterval;
+        }
+    }
+
+    private synchronized void record() {
+        if (closed || failure != null) return;
+        try {
+            if (frames == 0) header();
+            frame();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void header() throws IOException {
+        int size = Integer.BYTES + 4 * Codec.MAX_VARINT_SIZE + Codec.sizeOf(config);
+        for (Player player : game.getPlayers()) {
+            size += Codec.sizeOf(player.getName()) + Codec.sizeOf(player.getColor());
+        }
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.putInt(MAGIC);
+        header.put(VERSION);
+        Codec.putString(header, config);
+        Codec.putVarLong(header, game.getSeekers().size());
+        Codec.putVarLong(header, game.getGoals().size());
+        Codec.putVarLong(header, game.getPlayers().size());
+        for (Player player : game.getPlayers()) {
+            Codec.putString(header, player.getName());
+            Codec.putString(header, player.getColor());
+        }
+        write(header.flip());
+    }
+
+    private void frame() throws IOException {
+        int i = 0;
+        for (Seeker seeker : game.getSeekers()) {
+            current[i++] = quantize(seeker.getPosition().getX(), POSITION_SCALE);
+            current[i++] = quantize(seeker.getPosition().getY(), POSITION_SCALE);
+            current[i++] = quantize(seeker.getVelocity().getX(), VELOCITY_SCALE);
+            current[i++] = quantize(seeker.getVelocity().getY(), VELOCITY_SCALE);
+            current[i++] = quantize(seeker.getMagnet(), MAGNET_SCALE);
+            current[i++] = seeker.getDisabledCounter();
+        }
+        for (Goal goal : game.getGoals()) {
+            current[i++] = quantize(goal.getPosition().getX(), POSITION_SCALE);
+            current[i++] = quantize(goal.getPosition().getY(), POSITION_SCALE);
+            current[i++] = quantize(goal.getVelocity().getX(), VELOCITY_SCALE);
+            current[i++] = quantize(goal.getVelocity().getY(), VELOCITY_SCALE);
+            current[i++] = goal.getTimeOwned();
+            current[i++] = game.getCamps().indexOf(goal.getCapture()) + 1L;
+        }
+        for (Player player : game.getPlayers()) {
+            current[i++] = player.getScore();
+        }
+
+        boolean keyframe = frames % properties.getKeyframeInterval() == 0;
+        frame.clear();
+        Codec.putVarLong(frame, game.getPassedPlaytime());
+        frame.putLong(game.getStateHash());
+        for (int j = 0; j < current.length; j++) {
+            Codec.putSignedVarLong(frame, keyframe ? current[j] : current[j] - previous[j]);
+        }
+        frame.flip();
+
+        if (buffer.remaining() < 1 + Codec.MAX_VARINT_SIZE + frame.remaining()) flush();
+        if (keyframe) keyframes.add(new long[]{game.getPassedPlaytime(), written + buffer.position()});
+        buffer.put(keyframe ? KEYFRAME : DELTA);
+        Codec.putVarLong(buffer, frame.remaining());
+        buffer.put(frame);
+
+        long[] swap = previous;
+        previous = current;
+        current = swap;
+        frames++;
+    }
+
+    static long quantize(double value, double scale) {
+        return Math.round(value * scale);
+    }
+
+    private void write(ByteBuffer source) throws IOException {
+        if (source.remaining() > buffer.remaining()) flush();
+        if (source.remaining() > buffer.remaining()) {
+            while (source.hasRemaining()) written += channel.write(source);
+        } else {
+            buffer.put(source);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) written += channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * @return the number of recorded ticks
+     */
+    public synchronized long getRecordedTicks() {
+        return frames;
+    }
+
+    /**
+     * Writes the keyframe index and closes the file. The recorder ignores all further ticks.
+     *
+     * @throws IOException if the recording failed or the file could not be written
+     */
+    @WillClose
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (failure == null && frames > 0) {
+                long offset = written + buffer.position();
+                ByteBuffer index = ByteBuffer.allocate(1 + 2 * Codec.MAX_VARINT_SIZE
+                        + keyframes.size() * 2 * Codec.MAX_VARINT_SIZE + FOOTER_SIZE);
+                index.put(INDEX);
+                Codec.putVarLong(index, game.getPassedPlaytime());
+                Codec.putVarLong(index, keyframes.size());
+                for (long[] keyframe : keyframes) {
+                    Codec.putVarLong(index, keyframe[0]);
+                    Codec.putVarLong(index, keyframe[1]);
+                }
+                index.putLong(offset);
+                index.putInt(INDEX_MAGIC);
+                write(index.flip());
+                flush();
+            }
+        } catch (IOException e) {
+            failure = e;
+        } finally {
+            channel.close();
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a recording written by a {@link MatchRecorder}. The file is memory mapped and only the frame of the current
+ * tick is decoded, so replays are never decoded onto the heap as a whole. The keyframe index is read from the end of
+ * the file, or rebuilt by skipping over all frames if the recording was not closed properly. Seeking starts at the
+ * closest keyframe, which bounds it by the keyframe interval.
+ * <p>
+ * The decoded state is written into a game with {@link #apply(Game)}. A game from {@link #createGame()} is never
+ * simulated and only changes with the replay, it can be used as a read-only view of the recorded match.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class MatchReplay {
+
+    private final @Nonnull ByteBuffer buffer;
+    private final @Nonnull Ini config;
+    private final @Nonnull List<String> names = new ArrayList<>();
+    private final @Nonnull List<String> colors = new ArrayList<>();
+    private final int seekers;
+    private final int goals;
+    private final int players;
+
+    // Keyframe index
+    private long[] keyframeTicks = new long[16];
+    private int[] keyframeOffsets = new int[16];
+    private int keyframes = 0;
+    private final int start;
+    private int end;
+    private long lastTick = -1;
+
+    // Current frame
+    private final @Nonnull long[] values;
+    private int position;
+    private long tick = -1;
+    private long hash = 0;
+
+    /**
+     * Maps the recording into memory and reads its header and keyframe index.
+     *
+     * @param path the file of the recording
+     * @throws IOException if the file could not be mapped or is not a recording
+     */
+    public MatchReplay(@Nonnull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            if (buffer.getInt() != MatchRecorder.MAGIC) throw new IOException("Not a match recording: " + path);
+            if (buffer.get() != MatchRecorder.VERSION) throw new IOException("Unsupported recording version: " + path);
+            config = new Ini(new StringReader(Codec.getString(buffer)));
+            seekers = Codec.getVarInt(buffer);
+            goals = Codec.getVarInt(buffer);
+            players = Codec.getVarInt(buffer);
+            for (int i = 0; i < players; i++) {
+                names.add(Codec.getString(buffer));
+                colors.add(Codec.getString(buffer));
+            }
+            start = buffer.position();
+            if (!readIndex()) scanIndex();
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupted match recording: " + path, e);
+        }
+        values = new long[seekers * MatchRecorder.SEEKER_VALUES + goals * MatchRecorder.GOAL_VALUES
+                + players * MatchRecorder.PLAYER_VALUES];
+        position = start;
+    }
+
+    private boolean readIndex() {
+        int size = buffer.limit();
+        if (size - start < MatchRecorder.FOOTER_SIZE
+                || buffer.getInt(size - Integer.BYTES) != MatchRecorder.INDEX_MAGIC) return false;
+        int offset = Math.toIntExact(buffer.getLong(size - MatchRecorder.FOOTER_SIZE));
+        buffer.position(offset);
+        if (buffer.get() != MatchRecorder.INDEX) return false;
+        lastTick = Codec.getVarLong(buffer);
+        int count = Codec.getVarInt(buffer);
+        for (int i = 0; i < count; i++) {
+            addKeyframe(Codec.getVarLong(buffer), Codec.getVarInt(buffer));
+        }
+        end = offset;
+        return true;
+    }
+
+    private void scanIndex() {
+        int offset = start;
+        int size = buffer.limit();
+        while (offset < size) {
+            byte kind = buffer.get(offset);
+            if (kind != MatchRecorder.KEYFRAME && kind != MatchRecorder.DELTA) break;
+            try {
+                buffer.position(offset + 1);
+                int length = Codec.getVarInt(buffer);
+                int next = buffer.position() + length;
+                if (next > size) break;
+                long frame = Codec.getVarLong(buffer);
+                if (kind == MatchRecorder.KEYFRAME) addKeyframe(frame, offset);
+                lastTick = frame;
+                offset = next;
+            } catch (RuntimeException e) {
+                break; // truncated frame of an interrupted recording
+            }
+        }
+        end = offset;
+    }
+
+    private void addKeyframe(long tick, int offset) {
+        if (keyframes == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+        }
+        keyframeTicks[keyframes] = tick;
+        keyframeOffsets[keyframes] = offset;
+        keyframes++;
+    }
+
+    /**
+     * @return true if there is another recorded tick after the current one
+     */
+    @CheckReturnValue
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * Decodes the next recorded tick.
+     *
+     * @throws IllegalStateException if there are no more ticks
+     */
+    public void next() {
+        if (!hasNext()) throw new IllegalStateException("End of recording");
+        byte kind = buffer.get(position);
+        buffer.position(position + 1);
+        int length = Codec.getVarInt(buffer);
+        int next = buffer.position() + length;
+        tick = Codec.getVarLong(buffer);
+        hash = buffer.getLong();
+        if (kind == MatchRecorder.KEYFRAME) {
+            for (int i = 0; i < values.length; i++) values[i] = Codec.getSignedVarLong(buffer);
+        } else {
+            for (int i = 0; i < values.length; i++) values[i] += Codec.getSignedVarLong(buffer);
+        }
+        position = next;
+    }
+
+    /**
+     * Decodes the recorded tick closest to the given tick. Decoding starts at the last keyframe before the tick, or
+     * continues from the current tick if no keyframe lies in between.
+     *
+     * @param target the tick to seek to
+     */
+    public void seek(long target) {
+        if (keyframes == 0) return;
+        int index = Arrays.binarySearch(keyframeTicks, 0, keyframes, target);
+        if (index < 0) index = Math.max(-index - 2, 0);
+        if (tick < keyframeTicks[index] || tick > target) {
+            position = keyframeOffsets[index];
+            next();
+        }
+        while (tick < target && hasNext()) next();
+    }
+
+    /**
+     * Writes the state of the current tick into the game. The game must be created from the config of this replay.
+     * The quantized values cannot reproduce the exact state hash of the recorded game, so the game takes over the
+     * recorded {@link #getStateHash() hash} of the tick instead.
+     *
+     * @param game the game to update
+     * @throws IllegalArgumentException if the game does not match the recording
+     */
+    public void apply(@Nonnull Game game) {
+        if (game.getSeekers().size() != seekers || game.getGoals().size() != goals
+                || game.getPlayers().size() != players)
+            throw new IllegalArgumentException("Game does not match the recording");
+        int i = 0;
+        for (Seeker seeker : game.getSeekers()) {
+            seeker.setPosition(new Vector2D(values[i] / MatchRecorder.POSITION_SCALE,
+                    values[i + 1] / MatchRecorder.POSITION_SCALE));
+            seeker.setVelocity(new Vector2D(values[i + 2] / MatchRecorder.VELOCITY_SCALE,
+                    values[i + 3] / MatchRecorder.VELOCITY_SCALE));
+            seeker.restore(values[i + 4] / MatchRecorder.MAGNET_SCALE, (int) values[i + 5]);
+            i += MatchRecorder.SEEKER_VALUES;
+        }
+        for (Goal goal : game.getGoals()) {
+            goal.setPosition(new Vector2D(values[i] / MatchRecorder.POSITION_SCALE,
+                    values[i + 1] / MatchRecorder.POSITION_SCALE));
+            goal.setVelocity(new Vector2D(values[i + 2] / MatchRecorder.VELOCITY_SCALE,
+                    values[i + 3] / MatchRecorder.VELOCITY_SCALE));
+            int capture = (int) values[i + 5];
+            goal.restore(capture > 0 ? game.getCamps().get(capture - 1) : null, (int) values[i + 4]);
+            i += MatchRecorder.GOAL_VALUES;
+        }
+        for (Player player : game.getPlayers()) {
+            player.restore((int) values[i]);
+            i += MatchRecorder.PLAYER_VALUES;
+        }
+        game.restore(Math.max(tick, 0), hash);
+    }
+
+    /**
+     * Creates a game from the recorded config with the recorded names and colors and the state of the current tick.
+     * The game is not simulated, it only changes if the replay is applied again.
+     *
+     * @return the view of the replay
+     */
+    @Nonnull
+    public Game createGame() {
+        Game game = Game.create(config);
+        for (int i = 0; i < players; i++) {
+            game.getPlayers().get(i).setName(names.get(i));
+            game.getPlayers().get(i).setColor(colors.get(i));
+        }
+        apply(game);
+        return game;
+    }
+
+    /**
+     * @return the config the recorded game was created from
+     */
+    @Nonnull
+    public Ini getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the recorded names of all players
+     */
+    @Nonnull
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @return the recorded colors of all players
+     */
+    @Nonnull
+    public List<String> getColors() {
+        return Collections.unmodifiableList(colors);
+    }
+
+    /**
+     * @return the current tick, or -1 if no tick was decoded yet
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return the state hash that was recorded for the current tick
+     */
+    public long getStateHash() {
+        return hash;
+    }
+
+    /**
+     * @return the first recorded tick, or -1 if the recording is empty
+     */
+    public long getFirstTick() {
+        return keyframes > 0 ? keyframeTicks[0] : -1;
+    }
+
+    /**
+     * @return the last recorded tick, or -1 if the recording is empty
+     */
+    public long getLastTick() {
+        return lastTick;
+    }
+
+    /**
+     * @return the number of keyframes that can be used for seeking
+     */
+    public int getKeyframes() {
+        return keyframes;
+    }
+
+    /**
+     * @param index the index of the keyframe
+     * @return the tick of the keyframe
+     * @throws IndexOutOfBoundsException if there is no keyframe with the index
+     */
+    public long getKeyframeTick(int index) {
+        if (index < 0 || index >= keyframes) throw new IndexOutOfBoundsException(index);
+        return keyframeTicks[index];
+    }
+}
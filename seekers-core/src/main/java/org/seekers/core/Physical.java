@@ -32,6 +32,8 @@ import java.util.List;
 public abstract class Physical<P extends Physical.Properties> implements Entity {
 
     private final @Nonnull Game game;
+    private final int serial;
+    private final @Nonnull String id;
     private @Nonnull Vector2D acceleration = Vector2D.ZERO;
     private @Nonnull Vector2D velocity = Vector2D.ZERO;
     private @Nonnull Vector2D position = Vector2D.ZERO;
@@ -46,8 +48,10 @@ public abstract class Physical<P extends Physical.Properties> implements Entity
     protected Physical(@Nonnull Game game, @Nonnull P properties) {
         this.game = game;
         this.properties = properties;
+        this.serial = game.register(this);
+        this.id = Integer.toString(serial);
 
-        setPosition(game.getTorus().getRandomPosition());
+        setPosition(game.getTorus().getRandomPosition(game.getRandom()));
         getGame().getEntities().add(this);
     }
 
@@ -84,10 +88,19 @@ public abstract class Physical<P extends Physical.Properties> implements Entity
     @OverridingMethodsMustInvokeSuper
     @Override
     public void update() {
+        TickEvent event = getGame().getTickEvent();
+        long start = event != null ? System.nanoTime() : 0;
         accelerate();
+        long accelerated = event != null ? System.nanoTime() : 0;
         velocity();
         displacement();
+        long integrated = event != null ? System.nanoTime() : 0;
         checks();
+        if (event != null) {
+            event.accelerate += accelerated - start;
+            event.integrate += integrated - accelerated;
+            event.collide += System.nanoTime() - integrated;
+        }
     }
 
     public abstract void accelerate();
@@ -172,6 +185,8 @@ public abstract class Physical<P extends Physical.Properties> implements Entity
      * @param position The new position vector.
      */
     public void setPosition(@Nonnull Vector2D position) {
+        getGame().getHash().update(serial, StateHash.POSITION_X, this.position.getX(), position.getX());
+        getGame().getHash().update(serial, StateHash.POSITION_Y, this.position.getY(), position.getY());
         this.position = position;
     }
 
@@ -191,6 +206,8 @@ public abstract class Physical<P extends Physical.Properties> implements Entity
      * @param velocity The new velocity vector.
      */
     public void setVelocity(@Nonnull Vector2D velocity) {
+        getGame().getHash().update(serial, StateHash.VELOCITY_X, this.velocity.getX(), velocity.getX());
+        getGame().getHash().update(serial, StateHash.VELOCITY_Y, this.velocity.getY(), velocity.getY());
         this.velocity = velocity;
     }
 
@@ -221,4 +238,23 @@ public abstract class Physical<P extends Physical.Properties> implements Entity
     public P getProperties() {
         return properties;
     }
+
+    int getSerial() {
+        return serial;
+    }
+
+    /**
+     * @return the id of this object, unique inside its game
+     */
+    public int getId() {
+        return serial;
+    }
+
+    /**
+     * @return the id of this object as it is sent over the api
+     */
+    @Override
+    public String toString() {
+        return id;
+    }
 }
@@ -34,6 +34,8 @@ game.getFront().getChildren().add(this);
 public class Player {
 
 	private final @Nonnull Game game;
+	private final int serial;
+	private final @Nonnull String id;
 	private final @Nonnull Map<String, Seeker> seekers = new LinkedHashMap<>();
 
 	private @Nullable Camp camp;
@@ -49,6 +51,8 @@ public class Player {
 	 */
 	public Player(@Nonnull Game game) {
 		this.game = game;
+		this.serial = game.register(this);
+		this.id = Integer.toString(serial);
 		this.name = "Player " + hashCode();
 		this.color = "0xffffff";
 		getGame().getPlayers().add(this);
@@ -58,6 +62,7 @@ public class Player {
 	 * Increases the score of the Player by 1.
 	 */
 	public void score() {
+		getGame().getHash().update(serial, StateHash.SCORE, score, score + 1L);
 		score++;
 	}
 
@@ -141,4 +146,27 @@ public class Player {
 	public int getScore() {
 		return score;
 	}
+
+	/**
+	 * Restores the score of a replayed Player.
+	 */
+	void restore(int score) {
+		getGame().getHash().update(serial, StateHash.SCORE, this.score, score);
+		this.score = score;
+	}
+
+	/**
+	 * @return the id of the Player, unique inside its game
+	 */
+	public int getId() {
+		return serial;
+	}
+
+	/**
+	 * @return the id of the Player as it is sent over the api
+	 */
+	@Override
+	public String toString() {
+		return id;
+	}
 }
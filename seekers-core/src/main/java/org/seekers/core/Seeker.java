@@ -170,10 +170,21 @@ public class Seeker extends Physical<Seeker.Properties> {
      */
     public void setMagnet(double magnet) {
         if (!isSeekerDisabled()) {
-            this.magnet = Math.max(Math.min(magnet, 1), -8);
+            double clamped = Math.max(Math.min(magnet, 1), -8);
+            getGame().getHash().update(getSerial(), StateHash.MAGNET, this.magnet, clamped);
+            this.magnet = clamped;
         }
     }
 
+    /**
+     * Restores the magnet and the disabled counter of a replayed Seeker, regardless of its current state.
+     */
+    void restore(double magnet, int disabledCounter) {
+        getGame().getHash().update(getSerial(), StateHash.MAGNET, this.magnet, magnet);
+        this.magnet = magnet;
+        this.disabledCounter = disabledCounter;
+    }
+
     public void changeMagnet(double magnet) {
         setMagnet(magnet);
     }
@@ -197,6 +208,15 @@ public class Seeker extends Physical<Seeker.Properties> {
         return disabledCounter > 0;
     }
 
+    /**
+     * Returns the number of ticks the Seeker stays disabled.
+     *
+     * @return The remaining disabled ticks, or 0 if the Seeker is not disabled.
+     */
+    public int getDisabledCounter() {
+        return disabledCounter;
+    }
+
     /**
      * Returns the target position of the Seeker.
      *
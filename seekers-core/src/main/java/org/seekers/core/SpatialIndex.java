@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import org.apiguardian.api.API;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * A uniform grid over a torus that finds all points within a radius of a position. Points are identified by their
+ * index and sorted into the cells of the grid by a counting sort, so rebuilding the index is linear and does not
+ * allocate once the arrays grew to the number of points. Queries wrap around the edges of the torus.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class SpatialIndex {
+
+    private final @Nonnull Torus torus;
+    private final int columns;
+    private final int rows;
+    private final double cellWidth;
+    private final double cellHeight;
+
+    // Points of cell c are items[starts[c]] until items[starts[c + 1]]
+    private final @Nonnull int[] starts;
+    private @Nonnull int[] items = new int[0];
+    private @Nonnull int[] cells = new int[0];
+    private @Nonnull double[] xs = new double[0];
+    private @Nonnull double[] ys = new double[0];
+    private int count;
+
+    /**
+     * @param torus    the torus of the points
+     * @param cellSize the minimal width and height of a cell, ideally about the radius of the queries
+     */
+    public SpatialIndex(@Nonnull Torus torus, double cellSize) {
+        if (!(cellSize > 0)) throw new IllegalArgumentException("Cell size must be positive");
+        this.torus = torus;
+        this.columns = Math.max(1, (int) (torus.getProperties().getWidth() / cellSize));
+        this.rows = Math.max(1, (int) (torus.getProperties().getHeight() / cellSize));
+        this.cellWidth = torus.getProperties().getWidth() / columns;
+        this.cellHeight = torus.getProperties().getHeight() / rows;
+        this.starts = new int[columns * rows + 1];
+    }
+
+    /**
+     * Replaces the points of the index.
+     *
+     * @param count the number of points
+     * @param x     the x coordinate of the point with an index
+     * @param y     the y coordinate of the point with an index
+     */
+    public void build(int count, @Nonnull IntToDoubleFunction x, @Nonnull IntToDoubleFunction y) {
+        if (items.length < count) {
+            items = new int[count];
+            cells = new int[count];
+            xs = new double[count];
+            ys = new double[count];
+        }
+        this.count = count;
+        Arrays.fill(starts, 0);
+        for (int i = 0; i < count; i++) {
+            xs[i] = x.applyAsDouble(i);
+            ys[i] = y.applyAsDouble(i);
+            cells[i] = row(ys[i]) * columns + column(xs[i]);
+            starts[cells[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            starts[c + 1] += starts[c];
+        }
+        // Fill every cell from its end, which leaves the start of every cell in the entry of the next one
+        for (int i = count - 1; i >= 0; i--) {
+            items[--starts[cells[i] + 1]] = i;
+        }
+        System.arraycopy(starts, 1, starts, 0, columns * rows);
+        starts[columns * rows] = count;
+    }
+
+    /**
+     * Calls the action with the index of every point within the radius of the position. The order of the points is
+     * unspecified, every point is passed at most once.
+     *
+     * @param x      the x coordinate of the position
+     * @param y      the y coordinate of the position
+     * @param radius the radius around the position
+     * @param action the action for the found points
+     */
+    public void query(double x, double y, double radius, @Nonnull IntConsumer action) {
+        int spanX = (int) Math.ceil(radius / cellWidth);
+        int spanY = (int) Math.ceil(radius / cellHeight);
+        // Visit every column and row at most once, even if the radius wraps around the whole torus
+        int fromX = 2 * spanX + 1 >= columns ? 0 : column(x) - spanX;
+        int toX = 2 * spanX + 1 >= columns ? columns - 1 : column(x) + spanX;
+        int fromY = 2 * spanY + 1 >= rows ? 0 : row(y) - spanY;
+        int toY = 2 * spanY + 1 >= rows ? rows - 1 : row(y) + spanY;
+        for (int r = fromY; r <= toY; r++) {
+            int row = Math.floorMod(r, rows) * columns;
+            for (int c = fromX; c <= toX; c++) {
+                int cell = row + Math.floorMod(c, columns);
+                for (int i = starts[cell]; i < starts[cell + 1]; i++) {
+                    int item = items[i];
+                    if (torus.getDistance(x, y, xs[item], ys[item]) <= radius) action.accept(item);
+                }
+            }
+        }
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, Math.max(0, (int) (x / cellWidth)));
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, Math.max(0, (int) (y / cellHeight)));
+    }
+
+    /**
+     * @return the number of points in the index
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+/**
+ * Rolling hash over the simulation state of a game. Every hashed field contributes a value that depends on the owner,
+ * the field and its current value. Contributions are combined with xor, so a field change only has to remove the old
+ * contribution and add the new one instead of rehashing the whole state.
+ *
+ * @author Karl Zschiebsch
+ */
+final class StateHash {
+
+    static final int POSITION_X = 0;
+    static final int POSITION_Y = 1;
+    static final int VELOCITY_X = 2;
+    static final int VELOCITY_Y = 3;
+    static final int MAGNET = 4;
+    static final int SCORE = 5;
+
+    private long value = 0;
+
+    void update(int serial, int field, double before, double after) {
+        update(serial, field, Double.doubleToLongBits(before), Double.doubleToLongBits(after));
+    }
+
+    void update(int serial, int field, long before, long after) {
+        if (before != after) {
+            long key = mix(((long) serial << 8) | field);
+            value ^= mix(key ^ mix(before)) ^ mix(key ^ mix(after));
+        }
+    }
+
+    long get() {
+        return value;
+    }
+
+    /**
+     * Replaces the hash, for games that take their state from a recording instead of simulating it.
+     */
+    void set(long value) {
+        this.value = value;
+    }
+
+    /**
+     * Finalizer of the SplitMix64 generator, spreads every input bit over the whole word.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
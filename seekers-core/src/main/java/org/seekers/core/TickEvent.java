@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a single tick of a game. The phases of the entities are interleaved, so every phase is the
+ * sum of the time all entities spent in it. The event is disabled by default and only allocated and timed while a
+ * recording enables it.
+ *
+ * @author Karl Zschiebsch
+ */
+@Name("org.seekers.Tick")
+@Label("Tick")
+@Category("Seekers")
+@Description("Update of all entities of a game")
+@Enabled(false)
+@StackTrace(false)
+final class TickEvent extends Event {
+
+    static final EventType TYPE = EventType.getEventType(TickEvent.class);
+
+    @Label("Tick")
+    long tick;
+
+    @Label("Entities")
+    int entities;
+
+    @Label("Commands")
+    @Description("Commands applied from the inbox at the start of the tick")
+    int commands;
+
+    @Label("Accelerate")
+    @Timespan(Timespan.NANOSECONDS)
+    long accelerate;
+
+    @Label("Integrate")
+    @Description("Velocity and displacement")
+    @Timespan(Timespan.NANOSECONDS)
+    long integrate;
+
+    @Label("Collide")
+    @Timespan(Timespan.NANOSECONDS)
+    long collide;
+
+    @Label("Adopt")
+    @Description("Capturing and scoring of goals")
+    @Timespan(Timespan.NANOSECONDS)
+    long adopt;
+}
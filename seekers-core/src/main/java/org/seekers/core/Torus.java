@@ -21,6 +21,7 @@ import org.apiguardian.api.API;
 import org.ini4j.Ini;
 
 import javax.annotation.Nonnull;
+import java.util.Random;
 
 /**
  * The TorusMap class provides utility methods for handling positions and
@@ -101,6 +102,20 @@ public class Torus {
 				distance(p0.getY(), p1.getY(), getProperties().getHeight())).length();
 	}
 
+	/**
+	 * Calculates the torus distance between two positions without allocating.
+	 * 
+	 * @param x0 The x coordinate of the first position.
+	 * @param y0 The y coordinate of the first position.
+	 * @param x1 The x coordinate of the second position.
+	 * @param y1 The y coordinate of the second position.
+	 * @return The torus distance between the two positions.
+	 */
+	public double getDistance(double x0, double y0, double x1, double y1) {
+		return Math.hypot(distance(x0, x1, getProperties().getWidth()),
+				distance(y0, y1, getProperties().getHeight()));
+	}
+
 	private static double difference(double p0, double p1, double d) {
 		double temp = Math.abs(p0 - p1);
 		return (temp < d - temp) ? p1 - p0 : p0 - p1;
@@ -142,6 +157,18 @@ public class Torus {
 		return new Vector2D(Math.random() * getProperties().getWidth(), Math.random() * getProperties().getHeight());
 	}
 
+	/**
+	 * Generates a random position on the torus map from the given generator.
+	 * 
+	 * @param random The generator of the position.
+	 * @return A random position on the torus map.
+	 */
+	@Nonnull
+	public Vector2D getRandomPosition(@Nonnull Random random) {
+		return new Vector2D(random.nextDouble() * getProperties().getWidth(),
+				random.nextDouble() * getProperties().getHeight());
+	}
+
 	/**
 	 * Returns the diameter of the torus map.
 	 * 
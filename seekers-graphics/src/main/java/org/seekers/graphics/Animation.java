@@ -24,24 +24,26 @@ import org.seekers.core.Entity;
 import javax.annotation.Nonnull;
 
 /**
- * Base class for all animations.
+ * Base class for all animations. Animations advance with the ticks of the game and are drawn with the frames.
  *
  * @author Karl Zschiebsch
  * @since 0.1.0
  */
 @API(since = "0.1.0", status = API.Status.STABLE)
-public abstract class Animation extends Pane implements Entity {
+public abstract class Animation extends Pane implements Entity, Renderable {
 
 	private final @Nonnull GameFX game;
 
 	protected Animation(@Nonnull GameFX game) {
 		this.game = game;
 		game.getEntities().add(this);
+		game.getRenderables().add(this);
 		game.getFront().getChildren().add(this);
 	}
 
 	public void destroy() {
 		game.getFront().getChildren().remove(this);
+		game.getRenderables().remove(this);
 		game.getEntities().remove(this);
 	}
 
@@ -17,12 +17,10 @@
 
 package org.seekers.graphics;
 
-import javafx.application.Platform;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import org.apiguardian.api.API;
 import org.seekers.core.Camp;
-import org.seekers.core.Vector2D;
 
 import javax.annotation.Nonnull;
 
@@ -31,7 +29,7 @@ import javax.annotation.Nonnull;
  * @since 0.1.0
  */
 @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
-public class CampFX extends Camp {
+public class CampFX extends Camp implements Renderable {
 
     private final Rectangle graphic = new Rectangle();
 
@@ -52,6 +50,7 @@ public class CampFX extends Camp {
         getGraphic().setStrokeWidth(6);
 
         player.getGame().getBack().getChildren().add(getGraphic());
+        player.getGame().getRenderables().add(this);
     }
 
     public Rectangle getGraphic() {
@@ -59,11 +58,8 @@ public class CampFX extends Camp {
     }
 
     @Override
-    public void setPosition(@Nonnull Vector2D position) {
-        super.setPosition(position);
-        Platform.runLater(() -> {
-            getGraphic().setLayoutX(position.getX() - getProperties().getWidth() * 0.5);
-            getGraphic().setLayoutY(position.getY() - getProperties().getHeight() * 0.5);
-        });
+    public void render() {
+        getGraphic().setLayoutX(getPosition().getX() - getProperties().getWidth() * 0.5);
+        getGraphic().setLayoutY(getPosition().getY() - getProperties().getHeight() * 0.5);
     }
 }
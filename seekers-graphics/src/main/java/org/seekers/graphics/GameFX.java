@@ -17,6 +17,7 @@
 
 package org.seekers.graphics;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Platform;
@@ -38,16 +39,27 @@ import org.ini4j.Ini;
 import org.seekers.core.*;
 
 import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
+ * A game that is displayed in its own window. The simulation only changes the state of the game, all graphics are
+ * rendered once per frame from the current state. Fast simulations or replays therefore skip frames instead of
+ * flooding the JavaFX application thread with updates.
+ *
  * @author Karl Zschiebsch
  * @since 0.1.0
  */
 @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
 public class GameFX extends Game {
 
-    public static synchronized GameFX create(Ini config) {
-        GameFX game = new GameFX(Game.Properties.from(config), new Torus(Torus.Properties.from(config)));
+    public static GameFX create(Ini config) {
+        return create(config, new Random().nextLong());
+    }
+
+    public static synchronized GameFX create(Ini config, long seed) {
+        GameFX game = new GameFX(Game.Properties.from(config), new Torus(Torus.Properties.from(config)), seed);
         Goal.Properties goals = Goal.Properties.from(config);
         for (int i = 0; i < game.getProperties().getGoals(); i++) {
             new GoalFX(game, goals);
@@ -74,8 +86,21 @@ public class GameFX extends Game {
     private final @Nonnull Stage stage = new Stage();
     private final @Nonnull Scene scene;
 
+    // Rendering, mutated by the game thread while the renderer iterates it on the JavaFX application thread
+    private final @Nonnull List<Renderable> renderables = new CopyOnWriteArrayList<>();
+    private final @Nonnull AnimationTimer renderer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            render();
+        }
+    };
+
     public GameFX(Properties properties, Torus torus) {
-        super(properties, torus);
+        this(properties, torus, new Random().nextLong());
+    }
+
+    public GameFX(Properties properties, Torus torus, long seed) {
+        super(properties, torus, seed);
 
         BorderPane parent = new BorderPane();
         parent.setTop(getInfo());
@@ -91,15 +116,39 @@ public class GameFX extends Game {
         getTime().setFont(Font.loadFont(getClass().getResourceAsStream("PixelFont.otf"), 16));
         getTime().setTextFill(Color.WHITESMOKE);
         getInfo().setPadding(new Insets(10));
-        setOnGameFinished(e -> Platform.runLater(stage::hide));
+        renderer.start();
+        setOnGameFinished(e -> Platform.runLater(() -> {
+            renderer.stop();
+            stage.hide();
+        }));
     }
 
-    @Override
-    public void updateAll() {
-        super.updateAll();
+    /**
+     * Renders all graphics of the game. Called once per frame on the JavaFX application thread.
+     */
+    public void render() {
+        for (Renderable renderable : renderables) {
+            renderable.render();
+        }
         getTime().setText(String.format("[%5d]", getPassedPlaytime()));
     }
 
+    /**
+     * Advances all animations by the given number of ticks without updating the rest of the game. Used when the state
+     * of the game is applied from outside, e.g. by a replay.
+     *
+     * @param ticks the number of ticks to advance
+     */
+    public void animate(long ticks) {
+        for (Entity entity : List.copyOf(getEntities())) {
+            if (entity instanceof Animation) {
+                for (long i = 0; i < ticks; i++) {
+                    entity.update();
+                }
+            }
+        }
+    }
+
     @Override
     public void play() {
         Timeline timeline = new Timeline(new KeyFrame(Duration.millis(getProperties().getTickDuration()), e -> updateAll()));
@@ -108,6 +157,16 @@ public class GameFX extends Game {
         setOnGameFinished(g -> timeline.stop());
     }
 
+    @Nonnull
+    public List<Renderable> getRenderables() {
+        return renderables;
+    }
+
+    @Nonnull
+    public Stage getStage() {
+        return stage;
+    }
+
     @Nonnull
     public Scene getScene() {
         return scene;
@@ -23,7 +23,6 @@ import javafx.scene.shape.Circle;
 import org.apiguardian.api.API;
 import org.seekers.core.Camp;
 import org.seekers.core.Goal;
-import org.seekers.core.Vector2D;
 
 import javax.annotation.Nonnull;
 
@@ -32,7 +31,7 @@ import javax.annotation.Nonnull;
  * @since 0.1.0
  */
 @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
-public class GoalFX extends Goal {
+public class GoalFX extends Goal implements Renderable {
 
     private final @Nonnull Circle graphic = new Circle(getProperties().getRadius(), Color.WHITE);
 
@@ -40,6 +39,7 @@ public class GoalFX extends Goal {
         super(game, properties);
 
         game.getBack().getChildren().add(getGraphic());
+        game.getRenderables().add(this);
     }
 
     @Override
@@ -54,31 +54,22 @@ public class GoalFX extends Goal {
     }
 
     @Override
-    public void setPosition(@Nonnull Vector2D position) {
-        super.setPosition(position);
-        Platform.runLater(() -> {
-            getGraphic().setCenterX(position.getX());
-            getGraphic().setCenterY(position.getY());
-        });
-    }
-
-    @Override
-    public void setTimeOwned(int timeOwned) {
-        super.setTimeOwned(timeOwned);
-        Platform.runLater(() -> {
-            if (timeOwned == 0) {
-                getGraphic().setFill(Color.WHITE);
-            } else {
-                final Camp checked = getCapture();
-                if (checked != null) {
-                    Color color = Color.web(checked.getPlayer().getColor());
-                    getGraphic().setFill(Color.color(
-                            1 + (color.getRed() - 1) * timeOwned / getProperties().getScoringTime(),
-                            1 + (color.getGreen() - 1) * timeOwned / getProperties().getScoringTime(),
-                            1 + (color.getBlue() - 1) * timeOwned / getProperties().getScoringTime()));
-                }
-            }
-        });
+    public void render() {
+        getGraphic().setCenterX(getPosition().getX());
+        getGraphic().setCenterY(getPosition().getY());
+
+        final int timeOwned = getTimeOwned();
+        final Camp checked = getCapture();
+        if (timeOwned == 0 || checked == null) {
+            getGraphic().setFill(Color.WHITE);
+        } else {
+            double progress = Math.min(timeOwned / getProperties().getScoringTime(), 1);
+            Color color = Color.web(checked.getPlayer().getColor());
+            getGraphic().setFill(Color.color(
+                    1 + (color.getRed() - 1) * progress,
+                    1 + (color.getGreen() - 1) * progress,
+                    1 + (color.getBlue() - 1) * progress));
+        }
     }
 
     /**
@@ -92,6 +83,7 @@ public class GoalFX extends Goal {
 
         private static final double ANIMATION_RANGE = 50.0;
         private final Circle wave = new Circle(0);
+        private double radius = 0;
 
         /**
          * Creates a new scoring animation.
@@ -106,8 +98,17 @@ public class GoalFX extends Goal {
 
         @Override
         public void update() {
-            if (Platform.isFxApplicationThread()) wave();
-            else Platform.runLater(this::wave);
+            radius += 0.75;
+        }
+
+        @Override
+        public void render() {
+            if (radius < ANIMATION_RANGE) {
+                wave.setRadius(radius);
+                wave.setStrokeWidth(1 + radius / ANIMATION_RANGE);
+            } else {
+                destroy();
+            }
         }
 
         private void place() {
@@ -119,15 +120,5 @@ public class GoalFX extends Goal {
             wave.setStroke(color);
             wave.setStrokeWidth(2);
         }
-
-        private void wave() {
-            var next = wave.getRadius() + 0.75;
-            if (next < ANIMATION_RANGE) {
-                wave.setRadius(next);
-                wave.setStrokeWidth(1 + next / ANIMATION_RANGE);
-            } else {
-                destroy();
-            }
-        }
     }
 }
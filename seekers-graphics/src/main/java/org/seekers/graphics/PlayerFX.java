@@ -17,14 +17,12 @@
 
 package org.seekers.graphics;
 
-import javafx.application.Platform;
 import javafx.scene.control.Label;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import org.apiguardian.api.API;
 import org.seekers.core.Camp;
 import org.seekers.core.Player;
-import org.seekers.core.Seeker;
 
 import javax.annotation.Nonnull;
 
@@ -33,9 +31,14 @@ import javax.annotation.Nonnull;
  * @since 0.1.0
  */
 @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
-public class PlayerFX extends Player {
+public class PlayerFX extends Player implements Renderable {
     private final Label graphics = new Label();
 
+    // Last rendered state
+    private int renderedScore = -1;
+    private String renderedName = "";
+    private String renderedColor = "";
+
     /**
      * Constructs a new instance of the Player class.
      *
@@ -46,40 +49,29 @@ public class PlayerFX extends Player {
 
         getGraphics().setFont(Font.loadFont(getClass().getResourceAsStream("PixelFont.otf"), 24));
         game.getInfo().getChildren().add(getGraphics());
+        game.getRenderables().add(this);
     }
 
+    /**
+     * Renders the label of the player and the color of its camp. The label is only rebuilt if the score, name or
+     * color changed since the last frame.
+     */
     @Override
-    public void score() {
-        super.score();
-        renderLabel();
-    }
-
-    private void renderLabel() {
-        Platform.runLater(() -> getGraphics().setText(String.format("%4d %s", getScore(), getName())));
-    }
-
-    @Override
-    public void setName(@Nonnull String name) {
-        super.setName(name);
-        renderLabel();
-    }
-
-    @Override
-    public void setColor(@Nonnull String color) {
-        super.setColor(color);
-        Platform.runLater(() -> {
-            Color web = Color.web(color);
+    public void render() {
+        if (getScore() != renderedScore || !getName().equals(renderedName)) {
+            renderedScore = getScore();
+            renderedName = getName();
+            getGraphics().setText(String.format("%4d %s", renderedScore, renderedName));
+        }
+        if (!getColor().equals(renderedColor)) {
+            renderedColor = getColor();
+            Color web = Color.web(renderedColor);
             getGraphics().setTextFill(web);
-            for (Seeker seeker : getSeekers().values()) {
-                if (seeker instanceof SeekerFX) {
-                    ((SeekerFX) seeker).setColor(web);
-                }
-            }
             Camp camp = getCamp();
             if (camp instanceof CampFX) {
                 ((CampFX) camp).getGraphic().setStroke(web);
             }
-        });
+        }
     }
 
     @Nonnull
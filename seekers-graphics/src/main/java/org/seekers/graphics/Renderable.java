@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.graphics;
+
+import org.apiguardian.api.API;
+
+/**
+ * Interface for all objects that draw the state of the game. Rendering is decoupled from the simulation: the game
+ * state may change any number of times between two frames, but every object is only rendered once per frame.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@FunctionalInterface
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public interface Renderable {
+    /**
+     * Updates the graphics of this object to the current state. Called on the JavaFX application thread.
+     */
+    void render();
+}
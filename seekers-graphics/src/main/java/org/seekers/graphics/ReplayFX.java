@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.graphics;
+
+import javafx.animation.AnimationTimer;
+import org.apiguardian.api.API;
+import org.seekers.core.MatchReplay;
+import org.seekers.core.State;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Plays a {@link MatchReplay} in a {@link GameFX} window. The replay is driven by the frame clock instead of the tick
+ * clock of the game: every frame the playback position advances by the elapsed time and the speed, the replay seeks
+ * to the resulting tick, the state is applied once and the animations advance by the passed ticks. At high speeds the
+ * ticks in between are never rendered.
+ * <p>
+ * Controls: {@code SPACE} pauses and resumes, {@code LEFT} and {@code RIGHT} seek by {@value #SEEK_STEP} ticks,
+ * {@code UP} and {@code DOWN} double and halve the speed.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class ReplayFX {
+
+    public static final double MIN_SPEED = 0.25;
+    public static final double MAX_SPEED = 64;
+    public static final int SEEK_STEP = 100;
+    /**
+     * Animations are periodic, so advancing them by more ticks than this per frame is not visible.
+     */
+    public static final int MAX_ANIMATED_TICKS = 64;
+
+    private final @Nonnull MatchReplay replay;
+    private final @Nonnull GameFX game;
+    private final double tickDuration;
+
+    private double position;
+    private double speed = 1;
+    private boolean paused = true;
+    private long last = -1;
+
+    private final @Nonnull AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (last >= 0 && !paused) {
+                advance((now - last) / 1e6);
+            }
+            last = now;
+        }
+    };
+
+    /**
+     * Creates a new window for the replay, starting paused at the first recorded tick. Must be called on the JavaFX
+     * application thread.
+     *
+     * @param replay the replay to play
+     */
+    public ReplayFX(@Nonnull MatchReplay replay) {
+        this.replay = replay;
+        this.game = GameFX.create(replay.getConfig());
+        this.tickDuration = game.getProperties().getTickDuration();
+        for (int i = 0; i < replay.getNames().size(); i++) {
+            game.getPlayers().get(i).setName(replay.getNames().get(i));
+            game.getPlayers().get(i).setColor(replay.getColors().get(i));
+        }
+        game.setGameState(State.RUNNING);
+        game.setOnGameFinished(g -> timer.stop());
+        game.getScene().setOnKeyPressed(e -> {
+            switch (e.getCode()) {
+                case SPACE:
+                    if (paused) play();
+                    else pause();
+                    break;
+                case LEFT:
+                    seek(replay.getTick() - SEEK_STEP);
+                    break;
+                case RIGHT:
+                    seek(replay.getTick() + SEEK_STEP);
+                    break;
+                case UP:
+                    setSpeed(speed * 2);
+                    break;
+                case DOWN:
+                    setSpeed(speed / 2);
+                    break;
+                default:
+                    break;
+            }
+        });
+        seek(replay.getFirstTick());
+        timer.start();
+    }
+
+    private void advance(double millis) {
+        double next = Math.min(position + millis * speed / tickDuration, replay.getLastTick());
+        if ((long) next != (long) position) {
+            replay.seek((long) next);
+            replay.apply(game);
+            game.animate(Math.min((long) next - (long) position, MAX_ANIMATED_TICKS));
+        }
+        position = next;
+        if (position >= replay.getLastTick()) pause();
+    }
+
+    /**
+     * Resumes the playback. Restarts from the first tick if the end was reached.
+     */
+    public void play() {
+        if (position >= replay.getLastTick()) seek(replay.getFirstTick());
+        paused = false;
+        update();
+    }
+
+    /**
+     * Pauses the playback at the current tick.
+     */
+    public void pause() {
+        paused = true;
+        update();
+    }
+
+    /**
+     * Jumps to the given tick, clamped to the recorded ticks.
+     *
+     * @param tick the tick to show
+     */
+    public void seek(long tick) {
+        long target = Math.max(replay.getFirstTick(), Math.min(tick, replay.getLastTick()));
+        replay.seek(target);
+        replay.apply(game);
+        position = replay.getTick();
+        update();
+    }
+
+    private void update() {
+        game.getStage().setTitle(String.format("Replay [%d/%d] %sx%s", replay.getTick(), replay.getLastTick(),
+                speed, paused ? " (paused)" : ""));
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Sets the speed of the playback, clamped between {@value #MIN_SPEED} and {@value #MAX_SPEED}.
+     *
+     * @param speed the number of ticks per tick duration
+     */
+    public void setSpeed(double speed) {
+        this.speed = Math.max(MIN_SPEED, Math.min(speed, MAX_SPEED));
+        update();
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    @Nonnull
+    public MatchReplay getReplay() {
+        return replay;
+    }
+
+    @Nonnull
+    public GameFX getGame() {
+        return game;
+    }
+}
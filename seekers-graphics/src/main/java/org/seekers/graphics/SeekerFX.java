@@ -17,12 +17,10 @@
 
 package org.seekers.graphics;
 
-import javafx.application.Platform;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 import org.apiguardian.api.API;
 import org.seekers.core.Seeker;
-import org.seekers.core.Vector2D;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
@@ -33,10 +31,11 @@ import java.util.List;
  * @since 0.1.0
  */
 @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
-public class SeekerFX extends Seeker {
+public class SeekerFX extends Seeker implements Renderable {
 
     private final Circle graphic = new Circle(getProperties().getRadius());
     private final SeekerAnimation animation;
+    private @Nonnull String renderedColor;
 
     /**
      * Constructs a new instance of the Seeker class.
@@ -47,73 +46,30 @@ public class SeekerFX extends Seeker {
     public SeekerFX(@Nonnull PlayerFX player, Properties properties) {
         super(player, properties);
         this.animation = new SeekerAnimation(player.getGame());
+        this.renderedColor = player.getColor();
 
-        getGraphic().setFill(Color.web(player.getColor()));
+        setColor(Color.web(renderedColor));
         player.getGame().getBack().getChildren().addAll(getGraphic(), animation);
+        player.getGame().getRenderables().add(this);
     }
 
     @Override
-    public void setPosition(@Nonnull Vector2D position) {
-        super.setPosition(position);
-        if (getGraphic() != null && getAnimation() != null) {
-            if (Platform.isFxApplicationThread()) reposition();
-            else Platform.runLater(this::reposition);
+    public void render() {
+        if (!getPlayer().getColor().equals(renderedColor)) {
+            renderedColor = getPlayer().getColor();
+            setColor(Color.web(renderedColor));
         }
-    }
-
-    private void reposition() {
         final var position = getPosition();
         getGraphic().setCenterX(position.getX());
         getGraphic().setCenterY(position.getY());
 
+        final boolean disabled = isSeekerDisabled();
+        getGraphic().setFill(disabled ? this.disabled : activated);
+        getAnimation().setVisible(!disabled && getMagnet() != 0);
         getAnimation().setLayoutX(position.getX());
         getAnimation().setLayoutY(position.getY());
     }
 
-    @Override
-    public void setMagnet(double magnet) {
-        super.setMagnet(magnet);
-        Platform.runLater(() -> getAnimation().setVisible(magnet != 0));
-    }
-
-    @Override
-    public void disable() {
-        super.disable();
-        if (Platform.isFxApplicationThread()) fxDisable();
-        else Platform.runLater(this::fxDisable);
-    }
-
-    private void fxDisable() {
-        getGraphic().setFill(disabled);
-        getAnimation().setVisible(false);
-    }
-
-    private void fxEnable() {
-        getGraphic().setFill(activated);
-        getAnimation().setVisible(true);
-    }
-
-    @Override
-    public boolean isSeekerDisabled() {
-        final boolean state = super.isSeekerDisabled();
-        if (Platform.isFxApplicationThread()) {
-            if (state) {
-                fxEnable();
-            } else {
-                fxDisable();
-            }
-        } else {
-            Platform.runLater(() -> {
-                if (state) {
-                    fxEnable();
-                } else {
-                    fxDisable();
-                }
-            });
-        }
-        return state;
-    }
-
     private @Nonnull Color activated = Color.WHITE;
     private @Nonnull Color disabled = Color.GRAY;
 
@@ -164,8 +120,7 @@ public class SeekerFX extends Seeker {
 
         @Override
         public void update() {
-            if (Platform.isFxApplicationThread()) expand();
-            else Platform.runLater(this::expand);
+            expand();
         }
 
         public void expand() {
@@ -176,12 +131,18 @@ public class SeekerFX extends Seeker {
                     if (range > getAnimationRange()) range -= getAnimationRange();
                     if (range < 0) range += getAnimationRange();
                     expansions.set(i, range);
-                    indicators.get(i).setRadius(range + SeekerFX.this.getProperties().getRadius());
                     frameTime = 8;
                 }
             }
         }
 
+        @Override
+        public void render() {
+            for (int i = 0; i < expansions.size(); i++) {
+                indicators.get(i).setRadius(expansions.get(i) + SeekerFX.this.getProperties().getRadius());
+            }
+        }
+
         @Override
         public void destroy() {
             throw new UnsupportedOperationException();
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a single command call. Disabled by default, and only allocated while a recording enables
+ * it.
+ *
+ * @author Karl Zschiebsch
+ */
+@Name("org.seekers.Command")
+@Label("Command")
+@Category("Seekers")
+@Description("Command call of a player")
+@Enabled(false)
+@StackTrace(false)
+final class CommandEvent extends Event {
+
+    static final EventType TYPE = EventType.getEventType(CommandEvent.class);
+
+    @Label("Method")
+    String method;
+
+    @Label("Player")
+    String player;
+
+    @Label("Commands")
+    int commands;
+
+    @Label("Changed")
+    @Description("Commands that were accepted for the next tick")
+    int changed;
+}
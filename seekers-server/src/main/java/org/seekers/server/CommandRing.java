@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import org.apiguardian.api.API;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * Ring buffer in a memory-mapped file that carries the commands of a single driver to the server. The driver is the
+ * only producer and the server the only consumer, so neither side needs a lock. The file has a fixed little-endian
+ * layout:
+ * <pre>
+ *   0  int    magic, "SKCR"
+ *   4  int    capacity in slots, a power of two
+ *  64  long   head, the number of commands written by the driver
+ * 128  long   tail, the number of commands read by the server
+ * 192         slots: int seeker index, int padding, double target x, target y, magnet
+ * </pre>
+ * The driver writes a slot at {@code head % capacity} while {@code head - tail < capacity}, then increments the head
+ * with a release store. Head and tail lie on separate cache lines.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class CommandRing implements AutoCloseable {
+
+    public static final int MAGIC = 0x52434B53;
+
+    static final int CAPACITY = 4;
+    static final int HEAD = 64;
+    static final int TAIL = 128;
+    static final int SLOTS = 192;
+    static final int SLOT_SIZE = 32;
+
+    private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rw-------");
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Receives the commands of the ring.
+     */
+    @FunctionalInterface
+    public interface Consumer {
+        void accept(int seeker, double x, double y, double magnet);
+    }
+
+    private final @Nonnull Path path;
+    private final @Nonnull FileChannel channel;
+    private final @Nonnull MappedByteBuffer buffer;
+    private final int capacity;
+    private final boolean owner;
+
+    private CommandRing(@Nonnull Path path, @Nonnull FileChannel channel, @Nonnull MappedByteBuffer buffer,
+                        int capacity, boolean owner) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.owner = owner;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates the file of a ring. Used by the server, which deletes the file on close. The file is only readable and
+     * writable by the owner where the file system supports it, and an existing file is never reused, as another
+     * process could have created it to write into the ring.
+     *
+     * @param path     the file of the ring
+     * @param capacity the number of slots, rounded up to a power of two
+     * @return the ring
+     * @throws java.nio.file.FileAlreadyExistsException if the file exists
+     * @throws IOException                               if the file could not be mapped
+     */
+    @Nonnull
+    public static CommandRing create(@Nonnull Path path, int capacity) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("Negative or zero number: " + capacity);
+        int slots = Integer.highestOneBit(capacity - 1) << 1;
+        if (slots <= 0) slots = 1;
+        FileChannel channel = createPrivate(path);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SLOTS + (long) slots * SLOT_SIZE);
+        CommandRing ring = new CommandRing(path, channel, buffer, slots, true);
+        buffer.putInt(CAPACITY, slots);
+        buffer.putInt(0, MAGIC);
+        return ring;
+    }
+
+    /**
+     * Creates a new file that is only readable and writable by the owner where the file system supports it.
+     *
+     * @param path the file
+     * @return the channel of the file, open for reading and writing
+     * @throws java.nio.file.FileAlreadyExistsException if the file exists
+     * @throws IOException                               if the file could not be created
+     */
+    @Nonnull
+    static FileChannel createPrivate(@Nonnull Path path) throws IOException {
+        Set<OpenOption> options = Set.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        return path.getFileSystem().supportedFileAttributeViews().contains("posix")
+                ? FileChannel.open(path, options, PosixFilePermissions.asFileAttribute(OWNER_ONLY))
+                : FileChannel.open(path, options);
+    }
+
+    /**
+     * Opens the file of an existing ring. Used by drivers in the JVM.
+     *
+     * @param path the file of the ring
+     * @return the ring
+     * @throws IOException if the file could not be mapped or is not a ring
+     */
+    @Nonnull
+    public static CommandRing open(@Nonnull Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException("Not a command ring: " + path);
+        }
+        return new CommandRing(path, channel, buffer, buffer.getInt(CAPACITY), false);
+    }
+
+    /**
+     * Writes a command into the ring. Must only be called by the single producer.
+     *
+     * @return false if the ring is full
+     */
+    public boolean offer(int seeker, double x, double y, double magnet) {
+        long head = (long) LONGS.getOpaque(buffer, HEAD);
+        if (head - (long) LONGS.getAcquire(buffer, TAIL) >= capacity) return false;
+        int offset = slot(head);
+        buffer.putInt(offset, seeker);
+        buffer.putDouble(offset + 8, x).putDouble(offset + 16, y).putDouble(offset + 24, magnet);
+        LONGS.setRelease(buffer, HEAD, head + 1);
+        return true;
+    }
+
+    /**
+     * Reads all commands written since the last drain. Must only be called by the single consumer.
+     *
+     * @param consumer receives the commands in the order they were written
+     * @return the number of read commands
+     */
+    public int drain(@Nonnull Consumer consumer) {
+        long tail = (long) LONGS.getOpaque(buffer, TAIL);
+        long head = (long) LONGS.getAcquire(buffer, HEAD);
+        // A head that is behind or too far ahead can only be written by a broken driver
+        if (head - tail > capacity || head < tail) {
+            LONGS.setRelease(buffer, TAIL, head);
+            return 0;
+        }
+        for (long i = tail; i < head; i++) {
+            int offset = slot(i);
+            consumer.accept(buffer.getInt(offset), buffer.getDouble(offset + 8), buffer.getDouble(offset + 16),
+                    buffer.getDouble(offset + 24));
+        }
+        LONGS.setRelease(buffer, TAIL, head);
+        return (int) (head - tail);
+    }
+
+    private int slot(long index) {
+        return SLOTS + (int) (index & (capacity - 1)) * SLOT_SIZE;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Nonnull
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Closes the file. The server also deletes it.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        if (owner) Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+import org.seekers.api.CampOuterClass;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.GoalOuterClass;
+import org.seekers.api.PhysicalOuterClass;
+import org.seekers.api.PlayerOuterClass;
+import org.seekers.api.SeekerOuterClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the states of the matches of a {@link SeekersServer} as Server-Sent Events for browser dashboards. A client
+ * connects to {@code /feed/<match>}, or to {@code /feed} for the first running match, and receives one {@code state}
+ * event after every tick until the match finishes.
+ * <p>
+ * Every frame is encoded once per tick and shared by all connections of the match, either as JSON or as the serialized
+ * {@link org.seekers.server.proto.StateUpdate StateUpdate} in base64. The tick thread only replaces the latest frame of
+ * the match and never writes to a connection. Every connection is written by its own thread, which sends the latest
+ * frame whenever it is ready, so a slow browser skips frames instead of delaying the game or other connections.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class Feed {
+    private static final Logger logger = LoggerFactory.getLogger(Feed.class);
+    private static final String CONTEXT = "/feed";
+
+    private final @Nonnull Properties properties;
+    private final @Nonnull Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private @Nullable HttpServer server;
+    private @Nullable ExecutorService executor;
+
+    public Feed(@Nonnull Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Starts the HTTP endpoint.
+     *
+     * @throws IOException if unable to bind
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) return;
+        server = HttpServer.create(new InetSocketAddress(properties.getAddress(), properties.getPort()), 0);
+        executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("seekers-feed-%d")
+                .setDaemon(true).build());
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::serve);
+        server.start();
+        logger.info("Feed served on {}", server.getAddress());
+    }
+
+    /**
+     * Stops the HTTP endpoint and closes all connections.
+     */
+    public synchronized void stop() {
+        if (server == null || executor == null) return;
+        channels.values().forEach(Channel::close);
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    /**
+     * @return the port of the HTTP endpoint, or -1 if it is not started
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    @Nonnull
+    public Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Streams the states of the match after every tick while clients are connected. Must be called before the game is
+     * played.
+     * <p>
+     * Matches that limit states to areas of interest must not be attached, as the feed streams the full state.
+     *
+     * @param match the match
+     */
+    public void attach(@Nonnull Match match) {
+        Channel channel = new Channel();
+        channels.put(match.getId(), channel);
+        match.getGame().setOnGameTicked(game -> {
+            if (channel.connections.get() == 0) return;
+            Snapshot snapshot = match.snapshot();
+            channel.publish(new Frame(snapshot.getTick(), encode(snapshot)));
+        });
+        match.getGame().setOnGameFinished(game -> {
+            channels.remove(match.getId(), channel);
+            channel.close();
+        });
+    }
+
+    /**
+     * Encodes the state of a snapshot into a state event.
+     */
+    private byte[] encode(@Nonnull Snapshot snapshot) {
+        StringBuilder builder = new StringBuilder("id: ").append(snapshot.getTick()).append("\nevent: state\ndata: ");
+        if (properties.getFormat() == Format.BASE64) {
+            byte[] bytes = snapshot.getEncoded(snapshot.getUpdate());
+            builder.append(Base64.getEncoder().encodeToString(bytes != null ? bytes
+                    : snapshot.getUpdate().toByteArray()));
+        } else {
+            json(builder, snapshot.getTick(), snapshot.getResponse());
+        }
+        return builder.append("\n\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void json(StringBuilder builder, long tick, CommandResponse response) {
+        builder.append("{\"tick\":").append(tick).append(",\"players\":[");
+        for (int i = 0; i < response.getPlayersCount(); i++) {
+            PlayerOuterClass.Player player = response.getPlayers(i);
+            builder.append(i == 0 ? "{" : ",{");
+            string(builder.append("\"id\":"), player.getId());
+            string(builder.append(",\"camp\":"), player.getCampId());
+            builder.append('}');
+        }
+        builder.append("],\"camps\":[");
+        for (int i = 0; i < response.getCampsCount(); i++) {
+            CampOuterClass.Camp camp = response.getCamps(i);
+            builder.append(i == 0 ? "{" : ",{");
+            string(builder.append("\"id\":"), camp.getId());
+            string(builder.append(",\"player\":"), camp.getPlayerId());
+            builder.append(",\"x\":").append(camp.getPosition().getX())
+                    .append(",\"y\":").append(camp.getPosition().getY()).append('}');
+        }
+        builder.append("],\"seekers\":[");
+        for (int i = 0; i < response.getSeekersCount(); i++) {
+            SeekerOuterClass.Seeker seeker = response.getSeekers(i);
+            builder.append(i == 0 ? "{" : ",{");
+            physical(builder, seeker.getPhysical());
+            string(builder.append(",\"player\":"), seeker.getPlayerId());
+            builder.append(",\"tx\":").append(seeker.getTarget().getX())
+                    .append(",\"ty\":").append(seeker.getTarget().getY())
+                    .append(",\"magnet\":").append(seeker.getMagnet()).append('}');
+        }
+        builder.append("],\"goals\":[");
+        for (int i = 0; i < response.getGoalsCount(); i++) {
+            GoalOuterClass.Goal goal = response.getGoals(i);
+            builder.append(i == 0 ? "{" : ",{");
+            physical(builder, goal.getPhysical());
+            string(builder.append(",\"camp\":"), goal.getCampId());
+            builder.append('}');
+        }
+        builder.append("]}");
+    }
+
+    private static void physical(StringBuilder builder, PhysicalOuterClass.Physical physical) {
+        string(builder.append("\"id\":"), physical.getId());
+        builder.append(",\"x\":").append(physical.getPosition().getX())
+                .append(",\"y\":").append(physical.getPosition().getY())
+                .append(",\"vx\":").append(physical.getVelocity().getX())
+                .append(",\"vy\":").append(physical.getVelocity().getY());
+    }
+
+    private static void string(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') builder.append('\\').append(c);
+            else if (c < 0x20) builder.append(String.format("\\u%04x", (int) c));
+            else builder.append(c);
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Serves a connection until the match finishes, the feed stops or the client disconnects.
+     */
+    private void serve(@Nonnull HttpExchange exchange) throws IOException {
+        String id = exchange.getRequestURI().getPath().substring(CONTEXT.length()).replaceFirst("^/", "");
+        Channel channel = id.isEmpty() ? channels.values().stream().findFirst().orElse(null) : channels.get(id);
+        if (channel == null || !"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(channel == null ? 404 : 405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        channel.connections.incrementAndGet();
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            long sent = -1;
+            Frame frame;
+            while ((frame = channel.next(sent)) != null) {
+                output.write(frame.bytes);
+                output.flush();
+                sent = frame.tick;
+            }
+        } catch (IOException e) {
+            logger.debug("Feed connection closed", e);
+        } finally {
+            channel.connections.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    /**
+     * An encoded state event.
+     */
+    private static final class Frame {
+        final long tick;
+        final @Nonnull byte[] bytes;
+
+        Frame(long tick, @Nonnull byte[] bytes) {
+            this.tick = tick;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The latest frame of a match, which the connections of the match wait for.
+     */
+    private static final class Channel {
+        final @Nonnull AtomicInteger connections = new AtomicInteger();
+        private @Nullable Frame latest;
+        private boolean closed = false;
+
+        synchronized void publish(@Nonnull Frame frame) {
+            latest = frame;
+            notifyAll();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits for a frame after the tick.
+         *
+         * @return the latest frame, or null if the channel was closed or the thread interrupted
+         */
+        @Nullable
+        synchronized Frame next(long sent) {
+            try {
+                while (!closed && (latest == null || latest.tick <= sent)) wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return closed ? null : latest;
+        }
+    }
+
+    public enum Format {
+        JSON, BASE64
+    }
+
+    public static class Properties {
+
+        public static final String SECTION = "feed";
+
+        public static Properties from(Ini ini) {
+            Boolean enabled = ini.fetch(SECTION, "enabled", Boolean.class);
+            String address = ini.fetch(SECTION, "address");
+            Integer port = ini.fetch(SECTION, "port", Integer.class);
+            String format = ini.fetch(SECTION, "format");
+            return new Properties(
+                    enabled != null && enabled,
+                    address != null && !address.isBlank() ? address.strip() : "127.0.0.1",
+                    port != null ? port : 7780,
+                    format != null && !format.isBlank() ? Format.valueOf(format.strip().toUpperCase()) : Format.JSON
+            );
+        }
+
+        private final boolean enabled;
+        private final @Nonnull String address;
+        private final int port;
+        private final @Nonnull Format format;
+
+        public Properties(boolean enabled, @Nonnull String address, int port, @Nonnull Format format) {
+            if (port < 0 || port > 0xFFFF) throw new IllegalArgumentException("Invalid port: " + port);
+            this.enabled = enabled;
+            this.address = address;
+            this.port = port;
+            this.format = format;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return the address the HTTP endpoint binds to, only the local host by default
+         */
+        @Nonnull
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * @return the port of the HTTP endpoint, 0 picks a free port
+         */
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * @return the encoding of the frames
+         */
+        @Nonnull
+        public Format getFormat() {
+            return format;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+import org.seekers.api.CampOuterClass;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.GoalOuterClass;
+import org.seekers.api.SeekerOuterClass;
+import org.seekers.api.Vector2DOuterClass;
+import org.seekers.core.SpatialIndex;
+import org.seekers.core.Torus;
+import org.seekers.server.proto.InterestSummary;
+import org.seekers.server.proto.StateUpdate;
+
+import javax.annotation.Nonnull;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Limits the state a player receives to its area of interest: the entities within a radius of its seekers and its
+ * camp. All players and camps are always included, as are the own seekers. The hidden entities are counted in the cells
+ * of a coarse grid over the map, which is sent as summary along with the filtered state.
+ * <p>
+ * The view of a player is a keyframe of its own, with seekers and goals in the order of the full state but without the
+ * hidden ones. Views are therefore never sent as deltas or in the packed encoding. Unary commands are answered with the
+ * view as well. Spectators, the feed and the shared state would expose the full state, so they are disabled for matches
+ * that limit the states of their players.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class Interest {
+
+    private final @Nonnull Properties properties;
+    private final @Nonnull Torus torus;
+
+    public Interest(@Nonnull Properties properties, @Nonnull Torus torus) {
+        this.properties = properties;
+        this.torus = torus;
+    }
+
+    /**
+     * Indexes the positions of a state. The cells of the index are as large as the radius, so a query visits at most
+     * nine cells.
+     *
+     * @param count the number of positions
+     * @param x     the x coordinate of the position with an index
+     * @param y     the y coordinate of the position with an index
+     * @return the index of the positions
+     */
+    @Nonnull
+    SpatialIndex index(int count, @Nonnull IntToDoubleFunction x, @Nonnull IntToDoubleFunction y) {
+        SpatialIndex index = new SpatialIndex(torus, properties.getRadius());
+        index.build(count, x, y);
+        return index;
+    }
+
+    /**
+     * Builds the view of a player on a state.
+     *
+     * @param tick     the tick of the state
+     * @param response the full state
+     * @param player   the id of the player
+     * @param seekers  the index of the seekers of the state
+     * @param goals    the index of the goals of the state
+     * @return the keyframe with the entities in the area of interest of the player and the summary of the others
+     */
+    @Nonnull
+    StateUpdate view(long tick, @Nonnull CommandResponse response, @Nonnull String player,
+                     @Nonnull SpatialIndex seekers, @Nonnull SpatialIndex goals) {
+        boolean[] seekersSeen = new boolean[response.getSeekersCount()];
+        boolean[] goalsSeen = new boolean[response.getGoalsCount()];
+        IntConsumer seeSeeker = i -> seekersSeen[i] = true;
+        IntConsumer seeGoal = i -> goalsSeen[i] = true;
+        double radius = properties.getRadius();
+        for (int i = 0; i < response.getSeekersCount(); i++) {
+            SeekerOuterClass.Seeker seeker = response.getSeekers(i);
+            if (!seeker.getPlayerId().equals(player)) continue;
+            seekersSeen[i] = true;
+            Vector2DOuterClass.Vector2D position = seeker.getPhysical().getPosition();
+            seekers.query(position.getX(), position.getY(), radius, seeSeeker);
+            goals.query(position.getX(), position.getY(), radius, seeGoal);
+        }
+        for (CampOuterClass.Camp camp : response.getCampsList()) {
+            if (!camp.getPlayerId().equals(player)) continue;
+            seekers.query(camp.getPosition().getX(), camp.getPosition().getY(), radius, seeSeeker);
+            goals.query(camp.getPosition().getX(), camp.getPosition().getY(), radius, seeGoal);
+        }
+
+        int cells = properties.getSummary();
+        int[] hiddenSeekers = new int[cells * cells];
+        int[] hiddenGoals = new int[cells * cells];
+        CommandResponse.Builder view = CommandResponse.newBuilder()
+                .addAllPlayers(response.getPlayersList()).addAllCamps(response.getCampsList());
+        for (int i = 0; i < seekersSeen.length; i++) {
+            SeekerOuterClass.Seeker seeker = response.getSeekers(i);
+            if (seekersSeen[i]) view.addSeekers(seeker);
+            else hiddenSeekers[cell(seeker.getPhysical().getPosition(), cells)]++;
+        }
+        for (int i = 0; i < goalsSeen.length; i++) {
+            GoalOuterClass.Goal goal = response.getGoals(i);
+            if (goalsSeen[i]) view.addGoals(goal);
+            else hiddenGoals[cell(goal.getPhysical().getPosition(), cells)]++;
+        }
+        InterestSummary.Builder summary = InterestSummary.newBuilder().setColumns(cells).setRows(cells);
+        for (int i = 0; i < cells * cells; i++) {
+            summary.addSeekers(hiddenSeekers[i]).addGoals(hiddenGoals[i]);
+        }
+        return StateUpdate.newBuilder().setTick(tick).setState(view.build().toByteString()).setSummary(summary)
+                .build();
+    }
+
+    private int cell(@Nonnull Vector2DOuterClass.Vector2D position, int cells) {
+        int column = (int) (position.getX() / torus.getProperties().getWidth() * cells);
+        int row = (int) (position.getY() / torus.getProperties().getHeight() * cells);
+        return Math.min(cells - 1, Math.max(0, row)) * cells + Math.min(cells - 1, Math.max(0, column));
+    }
+
+    @Nonnull
+    public Properties getProperties() {
+        return properties;
+    }
+
+    public static class Properties {
+
+        public static final String SECTION = "interest";
+
+        public static Properties from(Ini ini) {
+            Boolean enabled = ini.fetch(SECTION, "enabled", Boolean.class);
+            Double radius = ini.fetch(SECTION, "radius", Double.class);
+            Integer summary = ini.fetch(SECTION, "summary", Integer.class);
+            return new Properties(
+                    enabled != null && enabled,
+                    radius != null ? radius : 200.0,
+                    summary != null ? summary : 8
+            );
+        }
+
+        private final boolean enabled;
+        private final double radius;
+        private final int summary;
+
+        public Properties(boolean enabled, double radius, int summary) {
+            if (!(radius > 0)) throw new IllegalArgumentException("Radius must be positive: " + radius);
+            if (summary < 1) throw new IllegalArgumentException("Summary must have at least one cell: " + summary);
+            this.enabled = enabled;
+            this.radius = radius;
+            this.summary = summary;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return the radius around the seekers and the camp of a player in which entities are visible
+         */
+        public double getRadius() {
+            return radius;
+        }
+
+        /**
+         * @return the number of columns and rows of the summary of the hidden entities
+         */
+        public int getSummary() {
+            return summary;
+        }
+    }
+}
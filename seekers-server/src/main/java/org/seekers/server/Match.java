@@ -0,0 +1,648 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import com.google.common.hash.Hashing;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+import org.seekers.api.CommandResponse;
+import org.seekers.core.Game;
+import org.seekers.core.InputRecorder;
+import org.seekers.core.LockstepClock;
+import org.seekers.core.MatchRecorder;
+import org.seekers.core.Player;
+import org.seekers.core.Seeker;
+import org.seekers.core.Vector2D;
+import org.seekers.server.proto.CommandAck;
+import org.seekers.server.proto.CommandBatch;
+import org.seekers.server.proto.SeekerCommand;
+import org.seekers.server.proto.StateUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.CheckReturnValue;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * A single match that is hosted by a {@link SeekersServer}. A match owns its game, the player slots of the game with
+ * their tokens, the drivers of its files and all clients that wait for its states. Matches are independent of each
+ * other, so a server can host any number of them at the same time.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class Match {
+    private static final Logger logger = LoggerFactory.getLogger(Match.class);
+    private static final int RING_CAPACITY = 1024;
+
+    private final @Nonnull String id;
+    private final @Nonnull Game game;
+    private final @Nonnull List<String> files;
+
+    // Clients
+    private final @Nonnull Map<String, Player> players = new ConcurrentHashMap<>();
+    private final @Nonnull List<SeekersDriver> drivers = new ArrayList<>();
+    private final @Nonnull List<StateStream<?>> subscribers = new CopyOnWriteArrayList<>();
+    private final @Nonnull List<StateStream<?>> spectators = new CopyOnWriteArrayList<>();
+    private final @Nonnull Queue<Waiting> waiting = new ConcurrentLinkedQueue<>();
+    private final @Nonnull Map<Player, Waiting> parked = new ConcurrentHashMap<>();
+    private final @Nonnull Map<Player, LongAdder> dropped = new ConcurrentHashMap<>();
+
+    private volatile @Nullable Snapshot snapshot;
+    private @Nullable MatchRecorder recorder;
+    private @Nullable InputRecorder inputRecorder;
+    private @Nullable LockstepClock clock;
+    private @Nullable Interest interest;
+    private @Nullable SharedState shared;
+    private @Nullable Metrics.GameMetrics metrics;
+    private final @Nonnull Map<Player, CommandRing> rings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new match and subscribes it to the ticks of the game.
+     *
+     * @param id    the id of the match
+     * @param game  the game of the match
+     * @param files the files of the match
+     */
+    Match(@Nonnull String id, @Nonnull Game game, @Nonnull List<String> files) {
+        this.id = id;
+        this.game = game;
+        this.files = List.copyOf(files);
+        game.setOnGameTicked(instance -> publish());
+        game.setOnGameFinished(instance -> finish());
+    }
+
+    /**
+     * Takes the next free player slot of the game.
+     *
+     * @param token the token of the player
+     * @return the player of the slot, or null if all slots are taken
+     */
+    @Nullable
+    synchronized Player join(@Nonnull String token) {
+        if (players.size() >= game.getPlayers().size()) return null;
+        Player player = game.getPlayers().get(players.size());
+        players.put(token, player);
+        if (clock != null) clock.join(player);
+        return player;
+    }
+
+    /**
+     * @return true if there is a free player slot
+     */
+    @CheckReturnValue
+    synchronized boolean hasFreeSlot() {
+        return players.size() < game.getPlayers().size();
+    }
+
+    /**
+     * @param token the token of the player
+     * @return the player with the token, or null if the token does not belong to this match
+     */
+    @Nullable
+    Player getPlayer(@Nonnull String token) {
+        return players.get(token);
+    }
+
+    /**
+     * Starts recording the states or inputs of the game if recording is enabled in the config. The recordings are
+     * named after the date and the files of the match.
+     *
+     * @param config the config the game was created from
+     */
+    void record(@Nonnull Ini config) {
+        MatchRecorder.Properties properties = MatchRecorder.Properties.from(config);
+        if (!properties.isEnabled() && !properties.isRecordingInputs()) return;
+        try {
+            Path folder = Files.createDirectories(Path.of(properties.getFolder()));
+            String name = String.format("%1$tY-%1$tm-%1$td-%1$tH%1$tM%1$tS-%2$s-%3$s", new Date(), id, files.stream()
+                    .map(file -> Path.of(file).getFileName().toString()).collect(Collectors.joining("-")));
+            if (properties.isEnabled()) {
+                recorder = new MatchRecorder(game, config, folder.resolve(name + ".skr"));
+                logger.info("Record match into {}", folder.resolve(name + ".skr"));
+            }
+            if (properties.isRecordingInputs()) {
+                inputRecorder = new InputRecorder(game, config, folder.resolve(name + ".ski"));
+                logger.info("Record inputs into {}", folder.resolve(name + ".ski"));
+            }
+        } catch (IOException e) {
+            logger.error("Could not start recording", e);
+        }
+    }
+
+    /**
+     * Runs the game in lockstep with the joined players if lockstep is enabled in the config. Must be called before
+     * the game is played.
+     *
+     * @param config the config the game was created from
+     */
+    void synchronize(@Nonnull Ini config) {
+        LockstepClock.Properties properties = LockstepClock.Properties.from(config);
+        if (!properties.isEnabled()) return;
+        clock = new LockstepClock(properties);
+        game.setClock(clock);
+        logger.info("Run match {} in lockstep with a deadline of {} ms", id, properties.getDeadline());
+    }
+
+    /**
+     * Limits the states of the players to their area of interest if it is enabled in the config. Must be called before
+     * the game is played.
+     *
+     * @param config the config the game was created from
+     */
+    void limit(@Nonnull Ini config) {
+        Interest.Properties properties = Interest.Properties.from(config);
+        if (!properties.isEnabled()) return;
+        interest = new Interest(properties, game.getTorus());
+        logger.info("Limit states of match {} to a radius of {}", id, properties.getRadius());
+    }
+
+    /**
+     * Publishes the state of the game into a memory-mapped file after every tick. Must be called before the game is
+     * played.
+     *
+     * @param folder the folder of the state file and the command rings
+     */
+    void share(@Nonnull Path folder) {
+        try {
+            shared = new SharedState(game, Files.createDirectories(folder).resolve(id + ".state"));
+            shared.publish();
+            logger.info("Share state of match {} in {}", id, shared.getPath());
+        } catch (FileAlreadyExistsException e) {
+            logger.error("State file {} was created by another process", e.getFile());
+        } catch (IOException e) {
+            logger.error("Could not share state", e);
+        }
+    }
+
+    /**
+     * Measures the ticks, commands and snapshots of the match. Must be called before the game is played.
+     *
+     * @param metrics the metrics of the server
+     */
+    void measure(@Nonnull Metrics metrics) {
+        this.metrics = metrics.measure(game);
+    }
+
+    /**
+     * Returns the command ring of a player, which is created by the first call. The name of the file is the hash of
+     * the token of the player, so only the player can find its ring among the files of the folder.
+     *
+     * @param player the player
+     * @param token  the token of the player
+     * @return the ring, or null if the match does not share its state
+     * @throws IOException if the ring could not be created, for example because the file already exists
+     */
+    @Nullable
+    synchronized CommandRing getRing(@Nonnull Player player, @Nonnull String token) throws IOException {
+        if (shared == null) return null;
+        CommandRing ring = rings.get(player);
+        if (ring == null) {
+            Path path = shared.getPath().resolveSibling(Hashing.sha256().hashString(token, StandardCharsets.UTF_8)
+                    + ".commands");
+            ring = CommandRing.create(path, RING_CAPACITY);
+            rings.put(player, ring);
+        }
+        return ring;
+    }
+
+    /**
+     * @return the shared state of the match, or null if the match does not share its state
+     */
+    @Nullable
+    SharedState getShared() {
+        return shared;
+    }
+
+    /**
+     * Builds the state of the game, as it is returned by the unary command call and pushed to subscribers.
+     *
+     * @return the state of the game
+     */
+    private CommandResponse state() {
+        return CommandResponse.newBuilder()
+                .addAllCamps(Transformers.CAMP_TRANSFORMER.transformAll(game.getCamps()))
+                .addAllPlayers(Transformers.PLAYER_TRANSFORMER.transformAll(game.getPlayers()))
+                .addAllSeekers(Transformers.SEEKER_TRANSFORMER.transformAll(game.getSeekers()))
+                .addAllGoals(Transformers.GOAL_TRANSFORMER.transformAll(game.getGoals())).build();
+    }
+
+    /**
+     * Returns the snapshot of the current tick. The snapshot is built lazily by the first call after the tick
+     * advanced, all later calls in the same tick share it.
+     *
+     * @return the snapshot of the current tick
+     */
+    @Nonnull
+    Snapshot snapshot() {
+        Snapshot current = snapshot;
+        long tick = game.getPassedPlaytime();
+        if (current == null || current.getTick() != tick) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.getTick() != tick) {
+                    SnapshotEvent event = SnapshotEvent.TYPE.isEnabled() ? new SnapshotEvent() : null;
+                    if (event != null) event.begin();
+                    long start = System.nanoTime();
+                    current = new Snapshot(tick, state(), () -> Transformers.PACKED_TRANSFORMER.transform(game),
+                            current);
+                    snapshot = current;
+                    if (metrics != null) metrics.snapshot(System.nanoTime() - start, current.getSize());
+                    if (event != null && event.shouldCommit()) {
+                        event.match = id;
+                        event.tick = tick;
+                        event.size = current.getSize();
+                        event.commit();
+                    }
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the keyframe of a snapshot for a client. Players only receive their area of interest if the match limits
+     * their states.
+     *
+     * @param snapshot the snapshot
+     * @param player   the player of the client, or null if the client is not a player
+     * @param packed   if the client asked for the packed encoding
+     * @return the keyframe for the client
+     */
+    @Nonnull
+    StateUpdate keyframe(@Nonnull Snapshot snapshot, @Nullable Player player, boolean packed) {
+        if (interest != null && player != null) return snapshot.getView(player.toString(), interest);
+        return packed ? snapshot.getPacked() : snapshot.getUpdate();
+    }
+
+    /**
+     * Returns the state of a snapshot as it is answered to a unary command. Players only receive their area of interest
+     * if the match limits their states.
+     *
+     * @param snapshot the snapshot
+     * @param player   the player that sent the command
+     * @return the state for the player
+     */
+    @Nonnull
+    CommandResponse response(@Nonnull Snapshot snapshot, @Nonnull Player player) {
+        if (interest != null) return snapshot.getViewResponse(player.toString(), interest);
+        return snapshot.getResponse();
+    }
+
+    /**
+     * Pushes the state after every tick to the stream.
+     *
+     * @param subscriber the stream
+     * @param player     the player of the stream, or null if the client is not a player
+     */
+    void subscribe(@Nonnull StateStream<?> subscriber, @Nullable Player player) {
+        Interest limit = interest;
+        if (limit != null && player != null) {
+            String id = player.toString();
+            subscriber.focus(snapshot -> snapshot.getView(id, limit));
+        }
+        if (player != null) subscriber.setOnDropped(() -> drop(player));
+        subscribers.add(subscriber);
+    }
+
+    void unsubscribe(@Nonnull StateStream<?> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Pushes the state after every tick to the stream of a read-only observer. The keyframes are serialized once for
+     * all spectators.
+     */
+    void spectate(@Nonnull StateStream<?> spectator) {
+        spectator.share();
+        spectator.setOnDropped(() -> {
+            if (metrics != null) metrics.dropped();
+        });
+        spectators.add(spectator);
+    }
+
+    void unspectate(@Nonnull StateStream<?> spectator) {
+        spectators.remove(spectator);
+    }
+
+    /**
+     * Counts a state that a slow client of the player did not receive.
+     */
+    private void drop(@Nonnull Player player) {
+        dropped.computeIfAbsent(player, key -> new LongAdder()).increment();
+        if (metrics != null) metrics.dropped();
+    }
+
+    /**
+     * Completes the call with the first state after the tick. If there is no newer state yet, the call is parked
+     * without blocking a thread and completed with all other parked calls once the next tick is published. A player
+     * has at most one parked call: a newer call of the same player completes the older one with the current state, so
+     * a client that does not wait for its calls cannot grow the queue.
+     *
+     * @param observer the observer of the call
+     * @param tick     the tick of the last state the client knows
+     * @param player   the player of the call
+     * @param packed   if the state is completed as packed keyframe
+     */
+    void await(@Nonnull ServerCallStreamObserver<StateUpdate> observer, long tick, @Nullable Player player,
+               boolean packed) {
+        Waiting call = new Waiting(observer, player, packed);
+        observer.setOnCancelHandler(() -> {
+            waiting.remove(call);
+            if (player != null) parked.remove(player, call);
+        });
+        waiting.add(call);
+        Waiting previous = player != null ? parked.put(player, call) : null;
+        // The tick may have been published before the call was parked
+        Snapshot current = snapshot();
+        if (previous != null && waiting.remove(previous)) previous.complete(current);
+        if ((current.getTick() > tick || current.getTick() >= game.getProperties().getPlaytime())
+                && waiting.remove(call)) {
+            call.complete(current);
+        }
+    }
+
+    /**
+     * Pushes the state after a tick to all subscribers and spectators and completes all waiting calls. The state is
+     * taken from the snapshot of the tick, so it is built and serialized once for all of them. Streams that cancelled
+     * their call are removed.
+     */
+    private void publish() {
+        if (shared != null) {
+            rings.forEach(this::drain);
+            shared.publish();
+        }
+        if (subscribers.isEmpty() && spectators.isEmpty() && waiting.isEmpty()) return;
+        Snapshot current = snapshot();
+        resume(current);
+        push(subscribers, current);
+        push(spectators, current);
+    }
+
+    private static void push(@Nonnull List<StateStream<?>> streams, @Nonnull Snapshot current) {
+        for (var stream : streams) {
+            if (stream.isCancelled()) {
+                streams.remove(stream);
+                continue;
+            }
+            try {
+                stream.publish(current);
+            } catch (RuntimeException e) {
+                logger.warn("Could not push state to stream", e);
+                streams.remove(stream);
+            }
+        }
+    }
+
+    /**
+     * Offers the commands of the ring of a player to the inbox of the game.
+     */
+    private void drain(@Nonnull Player player, @Nonnull CommandRing ring) {
+        List<Seeker> seekers = game.getSeekers();
+        ring.drain((index, x, y, magnet) -> {
+            if (index < 0 || index >= seekers.size() || seekers.get(index).getPlayer() != player) return;
+            if (game.getInbox().offer(seekers.get(index), new Vector2D(x, y), magnet) && metrics != null)
+                metrics.command(player);
+        });
+    }
+
+    /**
+     * Completes all waiting calls with the keyframe of the snapshot.
+     */
+    private void resume(Snapshot current) {
+        Waiting call;
+        while ((call = waiting.poll()) != null) {
+            try {
+                call.complete(current);
+            } catch (RuntimeException e) {
+                logger.warn("Could not complete waiting call", e);
+            }
+        }
+    }
+
+    /**
+     * Applies a batch of commands of the player.
+     *
+     * @return the acknowledgement of the batch
+     */
+    @Nonnull
+    CommandAck apply(@Nonnull Player player, @Nonnull CommandBatch batch) {
+        CommandEvent event = CommandEvent.TYPE.isEnabled() ? new CommandEvent() : null;
+        if (event != null) event.begin();
+        arrive(player, batch.getTick());
+        int changed = 0;
+        for (SeekerCommand command : batch.getCommandsList()) {
+            if (apply(player, command.getSeekerId(),
+                    new Vector2D(command.getTargetX(), command.getTargetY()), command.getMagnet())) changed++;
+        }
+        if (event != null && event.shouldCommit()) {
+            event.method = "SeekersStream";
+            event.player = player.toString();
+            event.commands = batch.getCommandsCount();
+            event.changed = changed;
+            event.commit();
+        }
+        return CommandAck.newBuilder().setTick(game.getPassedPlaytime()).setChanged(changed)
+                .setRespondsTo(batch.getTick()).build();
+    }
+
+    /**
+     * Notes that the player responded to the state of a tick, if the match runs in lockstep.
+     *
+     * @param player the player
+     * @param tick   the tick of the last state the player knows, clamped to the current tick of the game
+     */
+    void arrive(@Nonnull Player player, long tick) {
+        if (clock != null) clock.arrive(player, tick, game.getPassedPlaytime());
+    }
+
+    /**
+     * Offers a command for a seeker of the player to the inbox of the game. The command is applied at the start of
+     * the next tick.
+     *
+     * @return true if the seeker exists and the inbox accepted the command
+     */
+    boolean apply(@Nonnull Player player, @Nonnull String seekerId, @Nonnull Vector2D target, double magnet) {
+        Seeker seeker = game.getSeeker(seekerId);
+        if (seeker != null && seeker.getPlayer() == player && game.getInbox().offer(seeker, target, magnet)) {
+            if (metrics != null) metrics.command(player);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Completes all calls, finishes the recordings and closes the drivers.
+     */
+    private void finish() {
+        for (var subscriber : subscribers) {
+            subscriber.complete();
+        }
+        subscribers.clear();
+        for (var spectator : spectators) {
+            spectator.complete();
+        }
+        spectators.clear();
+        resume(snapshot());
+        for (AutoCloseable recording : new AutoCloseable[]{recorder, inputRecorder}) {
+            if (recording == null) continue;
+            try {
+                recording.close();
+            } catch (Exception e) {
+                logger.error("Could not finish recording", e);
+            }
+        }
+        List<AutoCloseable> files = new ArrayList<>(rings.values());
+        if (shared != null) files.add(shared);
+        for (AutoCloseable file : files) {
+            try {
+                file.close();
+            } catch (Exception e) {
+                logger.error("Could not close shared memory", e);
+            }
+        }
+        for (var driver : drivers) {
+            driver.close();
+        }
+        if (clock != null) {
+            for (Player player : players.values()) {
+                logger.info("Latency of {}: {}", player, clock.getLatency(player));
+            }
+        }
+        dropped.forEach((player, count) -> logger.info("Dropped {} states of {}", count.sum(), player));
+        logger.info("Match {} finished", id);
+    }
+
+    @Nonnull
+    public String getId() {
+        return id;
+    }
+
+    @Nonnull
+    public Game getGame() {
+        return game;
+    }
+
+    @Nonnull
+    public List<String> getFiles() {
+        return files;
+    }
+
+    @Nonnull
+    List<SeekersDriver> getDrivers() {
+        return drivers;
+    }
+
+    /**
+     * @return the lockstep clock of the match, or null if the match does not run in lockstep
+     */
+    @Nullable
+    public LockstepClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return the area of interest of the players, or null if the match does not limit their states
+     */
+    @Nullable
+    public Interest getInterest() {
+        return interest;
+    }
+
+    /**
+     * @param player the player
+     * @return the number of states that slow clients of the player did not receive, as newer states replaced them
+     */
+    public long getDropped(@Nonnull Player player) {
+        LongAdder count = dropped.get(player);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * @return the number of clients that are subscribed to the states of the match
+     */
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return the number of read-only observers of the match
+     */
+    int getSpectatorCount() {
+        return spectators.size();
+    }
+
+    /**
+     * @return the number of calls that wait for the next tick
+     */
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * @return the number of players that joined the match
+     */
+    public int getJoined() {
+        return players.size();
+    }
+
+    @Override
+    public String toString() {
+        return "Match " + id;
+    }
+
+    /**
+     * A parked call of {@link #await(ServerCallStreamObserver, long, Player, boolean)}.
+     */
+    private final class Waiting {
+        final @Nonnull StreamObserver<StateUpdate> observer;
+        final @Nullable Player player;
+        final boolean packed;
+
+        Waiting(@Nonnull StreamObserver<StateUpdate> observer, @Nullable Player player, boolean packed) {
+            this.observer = observer;
+            this.player = player;
+            this.packed = packed;
+        }
+
+        void complete(@Nonnull Snapshot snapshot) {
+            if (player != null) parked.remove(player, this);
+            observer.onNext(keyframe(snapshot, player, packed));
+            observer.onCompleted();
+        }
+    }
+}
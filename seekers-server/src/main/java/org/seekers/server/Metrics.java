@@ -0,0 +1,487 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import com.google.protobuf.MessageLite;
+import com.sun.net.httpserver.HttpServer;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+import org.seekers.core.Game;
+import org.seekers.core.LockstepClock;
+import org.seekers.core.Player;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Collects metrics of a {@link SeekersServer} and exposes them in the Prometheus text format on a local HTTP endpoint.
+ * Recording a value never blocks: counters are striped adders and histograms count values into fixed log-linear
+ * buckets, similar to an HDR histogram with a relative error of about six percent. Histograms are exposed as
+ * summaries with their quantiles.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class Metrics {
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    // Scales of recorded values
+    private static final double NANOS = 1e9;
+    private static final double UNITS = 1;
+
+    private final @Nonnull Properties properties;
+    private final @Nonnull Map<String, Family> families = new LinkedHashMap<>();
+    private final @Nonnull Map<String, Histogram[]> rpcs = new ConcurrentHashMap<>();
+    private @Nullable HttpServer server;
+
+    public Metrics(@Nonnull Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Starts the HTTP endpoint, which serves the metrics on {@code /metrics}.
+     *
+     * @throws IOException if unable to bind
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) return;
+        server = HttpServer.create(new InetSocketAddress(properties.getAddress(), properties.getPort()), 0);
+        server.createContext("/metrics", exchange -> {
+            StringBuilder builder = new StringBuilder();
+            write(builder);
+            byte[] body = builder.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        logger.info("Metrics served on {}", server.getAddress());
+    }
+
+    /**
+     * Stops the HTTP endpoint.
+     */
+    public synchronized void stop() {
+        if (server == null) return;
+        server.stop(0);
+        server = null;
+    }
+
+    /**
+     * @return the port of the HTTP endpoint, or -1 if it is not started
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * Returns the histogram of a series, which is created by the first call.
+     *
+     * @param name   the name of the metric
+     * @param help   the description of the metric
+     * @param scale  the divisor that converts recorded values into the unit of the metric
+     * @param labels alternating names and values of the labels of the series
+     * @return the histogram
+     */
+    @Nonnull
+    public Histogram histogram(@Nonnull String name, @Nonnull String help, double scale, @Nonnull String... labels) {
+        return (Histogram) series(name, help, "summary", labels, () -> new Histogram(scale));
+    }
+
+    /**
+     * Returns the counter of a series, which is created by the first call.
+     */
+    @Nonnull
+    public Counter counter(@Nonnull String name, @Nonnull String help, @Nonnull String... labels) {
+        return (Counter) series(name, help, "counter", labels, Counter::new);
+    }
+
+    /**
+     * Registers a gauge, which reads its value when the metrics are written.
+     */
+    public void gauge(@Nonnull String name, @Nonnull String help, @Nonnull LongSupplier value,
+                      @Nonnull String... labels) {
+        series(name, help, "gauge", labels, () -> new Gauge(value));
+    }
+
+    private synchronized Metric series(String name, String help, String type, String[] labels,
+                                       Supplier<Metric> factory) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (!family.type.equals(type)) throw new IllegalArgumentException("Metric " + name + " is a " + family.type);
+        return family.series.computeIfAbsent(labels(labels), key -> factory.get());
+    }
+
+    private static String labels(String... labels) {
+        if (labels.length % 2 != 0) throw new IllegalArgumentException("Labels must be pairs of names and values");
+        if (labels.length == 0) return "";
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            builder.append(i == 0 ? "" : ",").append(labels[i]).append("=\"").append(labels[i + 1]
+                    .replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes all metrics in the Prometheus text format.
+     *
+     * @param output the output
+     */
+    public synchronized void write(@Nonnull StringBuilder output) {
+        for (Map.Entry<String, Family> entry : families.entrySet()) {
+            String name = entry.getKey();
+            Family family = entry.getValue();
+            output.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            output.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Metric> series : family.series.entrySet()) {
+                series.getValue().write(output, name, series.getKey());
+            }
+        }
+    }
+
+    private static void sample(StringBuilder output, String name, String labels, double value) {
+        output.append(name);
+        if (!labels.isEmpty()) output.append('{').append(labels).append('}');
+        output.append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Creates an interceptor that records the duration and the response sizes of all calls of a service. The duration
+     * of a streaming call is its whole lifetime, and the duration of a waiting call includes the wait.
+     *
+     * @return the interceptor
+     */
+    @Nonnull
+    public ServerInterceptor interceptor() {
+        return new ServerInterceptor() {
+            @Override
+            public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+                                                               ServerCallHandler<Q, R> next) {
+                long start = System.nanoTime();
+                Histogram[] histograms = rpcs.computeIfAbsent(call.getMethodDescriptor().getFullMethodName(),
+                        method -> new Histogram[]{
+                                histogram("seekers_rpc_duration_seconds", "Duration of calls", NANOS,
+                                        "method", method),
+                                histogram("seekers_response_bytes", "Serialized size of responses", UNITS,
+                                        "method", method)
+                        });
+                return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+                    @Override
+                    public void sendMessage(R message) {
+                        if (message instanceof MessageLite)
+                            histograms[1].record(((MessageLite) message).getSerializedSize());
+                        super.sendMessage(message);
+                    }
+
+                    @Override
+                    public void close(Status status, Metadata trailers) {
+                        histograms[0].record(System.nanoTime() - start);
+                        super.close(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+
+    /**
+     * Measures the ticks of a game: the duration of every tick, how late it started compared to the tick duration of
+     * the game unless the game runs in lockstep, the commands of every player per tick and the snapshots of the game.
+     *
+     * @param game the game
+     * @return the metrics of the game
+     */
+    @Nonnull
+    public GameMetrics measure(@Nonnull Game game) {
+        return new GameMetrics(game);
+    }
+
+    /**
+     * Metrics of a single game.
+     */
+    public final class GameMetrics {
+        private final @Nonnull Map<Player, AtomicInteger> commands = new HashMap<>();
+        private final @Nonnull Histogram duration = histogram("seekers_tick_duration_seconds",
+                "Duration of ticks, including all listeners", NANOS);
+        private final @Nonnull Histogram lateness = histogram("seekers_tick_lateness_seconds",
+                "Time by which ticks started later than the tick duration, except for games in lockstep", NANOS);
+        private final @Nonnull Histogram perTick = histogram("seekers_commands_per_tick",
+                "Commands of a player per tick", UNITS);
+        private final @Nonnull Counter total = counter("seekers_commands_total", "Commands of all players");
+        private final @Nonnull Histogram snapshots = histogram("seekers_snapshot_duration_seconds",
+                "Duration of building and serializing snapshots", NANOS);
+        private final @Nonnull Histogram bytes = histogram("seekers_snapshot_bytes",
+                "Serialized size of snapshots", UNITS);
+        private final @Nonnull Counter dropped = counter("seekers_dropped_states_total",
+                "States that were replaced by a newer one before a slow client received them");
+        private long started = 0;
+
+        private GameMetrics(@Nonnull Game game) {
+            long interval = Math.round(game.getProperties().getTickDuration() * 1e6);
+            for (Player player : game.getPlayers()) commands.put(player, new AtomicInteger());
+            game.setOnGameTicking(instance -> {
+                long now = System.nanoTime();
+                // A lockstep clock releases ticks when the players arrived, so waiting for them is no lag
+                if (started != 0 && !(instance.getClock() instanceof LockstepClock))
+                    lateness.record(Math.max(0, now - started - interval));
+                started = now;
+            });
+            game.setOnGameTicked(instance -> {
+                duration.record(System.nanoTime() - started);
+                for (AtomicInteger count : commands.values()) perTick.record(count.getAndSet(0));
+            });
+        }
+
+        /**
+         * Counts a command of a player. Can be called from any thread.
+         */
+        public void command(@Nonnull Player player) {
+            AtomicInteger count = commands.get(player);
+            if (count != null) count.incrementAndGet();
+            total.increment();
+        }
+
+        /**
+         * Counts a state that was dropped for a slow client. Can be called from any thread.
+         */
+        public void dropped() {
+            dropped.increment();
+        }
+
+        /**
+         * Records a built snapshot.
+         *
+         * @param nanos the time it took to build the snapshot
+         * @param size  the serialized size of the snapshot
+         */
+        public void snapshot(long nanos, int size) {
+            snapshots.record(nanos);
+            bytes.record(size);
+        }
+    }
+
+    private static final class Family {
+        final @Nonnull String help;
+        final @Nonnull String type;
+        final @Nonnull Map<String, Metric> series = new LinkedHashMap<>();
+
+        Family(@Nonnull String help, @Nonnull String type) {
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    private interface Metric {
+        void write(StringBuilder output, String name, String labels);
+    }
+
+    /**
+     * Monotonic counter.
+     */
+    public static final class Counter implements Metric {
+        private final @Nonnull LongAdder value = new LongAdder();
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long amount) {
+            value.add(amount);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        public void write(StringBuilder output, String name, String labels) {
+            sample(output, name, labels, get());
+        }
+    }
+
+    private static final class Gauge implements Metric {
+        private final @Nonnull LongSupplier value;
+
+        Gauge(@Nonnull LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public void write(StringBuilder output, String name, String labels) {
+            sample(output, name, labels, value.getAsLong());
+        }
+    }
+
+    /**
+     * Histogram of non-negative values with log-linear buckets. Every power of two is split into sixteen buckets, so
+     * the bucket of a value is at most about six percent wider than the value itself. Recording is a single atomic
+     * increment and never allocates.
+     */
+    public static final class Histogram implements Metric {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final double scale;
+        private final @Nonnull AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final @Nonnull LongAdder count = new LongAdder();
+        private final @Nonnull LongAdder sum = new LongAdder();
+        private final @Nonnull LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram(double scale) {
+            this.scale = scale;
+        }
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int magnitude = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int top = (int) (value >>> (magnitude - SUB_BUCKET_BITS));
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + top - SUB_BUCKETS;
+        }
+
+        static long highest(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long top = bucket % SUB_BUCKETS + SUB_BUCKETS;
+            return ((top + 1) << (magnitude - SUB_BUCKET_BITS)) - 1;
+        }
+
+        /**
+         * Records a value. Negative values are recorded as zero.
+         */
+        public void record(long value) {
+            value = Math.max(0, value);
+            counts.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the value below which the fraction of recorded values falls. The value is the highest value of its
+         * bucket, but never higher than the highest recorded value.
+         *
+         * @param quantile the quantile between 0 and 1
+         * @return the value of the quantile in the unit of the metric, or 0 if nothing was recorded
+         */
+        public double getQuantile(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(highest(i), max.get()) / scale;
+            }
+            return max.get() / scale;
+        }
+
+        @Override
+        public void write(StringBuilder output, String name, String labels) {
+            for (double quantile : QUANTILES) {
+                sample(output, name, labels + (labels.isEmpty() ? "" : ",") + "quantile=\"" + quantile + '"',
+                        getQuantile(quantile));
+            }
+            sample(output, name + "_sum", labels, sum.sum() / scale);
+            sample(output, name + "_count", labels, getCount());
+        }
+    }
+
+    /**
+     * Properties of the metrics.
+     */
+    public static class Properties {
+
+        public static final String SECTION = "metrics";
+
+        public static Properties from(Ini ini) {
+            Boolean enabled = ini.fetch(SECTION, "enabled", Boolean.class);
+            String address = ini.fetch(SECTION, "address");
+            Integer port = ini.fetch(SECTION, "port", Integer.class);
+            return new Properties(
+                    enabled != null && enabled,
+                    address != null && !address.isBlank() ? address.strip() : "127.0.0.1",
+                    port != null ? port : 9464
+            );
+        }
+
+        private final boolean enabled;
+        private final @Nonnull String address;
+        private final int port;
+
+        public Properties(boolean enabled, @Nonnull String address, int port) {
+            if (port < 0 || port > 0xFFFF) throw new IllegalArgumentException("Invalid port: " + port);
+            this.enabled = enabled;
+            this.address = address;
+            this.port = port;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return the address the HTTP endpoint binds to, only the local host by default
+         */
+        @Nonnull
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * @return the port of the HTTP endpoint, 0 picks a free port
+         */
+        public int getPort() {
+            return port;
+        }
+    }
+}
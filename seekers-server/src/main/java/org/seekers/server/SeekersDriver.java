@@ -26,6 +26,7 @@ import javax.annotation.Nullable;
 import javax.annotation.WillClose;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,14 +45,28 @@ public class SeekersDriver implements AutoCloseable {
     private final @Nullable Process process;
 
     /**
-     * Creates a
+     * Creates a driver that connects over the TCP port of the server.
      *
      * @param file the name of the file
      * @param exec the execution command template
      */
     public SeekersDriver(@Nonnull String file, @Nonnull String exec) {
+        this(file, exec, null);
+    }
+
+    /**
+     * Creates a driver. The template may reference the Unix domain socket of the server with {@code {socket}}.
+     *
+     * @param file   the name of the file
+     * @param exec   the execution command template
+     * @param socket the path of the socket of the server, or null if the server does not listen on a socket
+     */
+    public SeekersDriver(@Nonnull String file, @Nonnull String exec, @Nullable Path socket) {
         if (!exec.contains("{file}")) throw new IllegalArgumentException(
                 "Execution template should contain a reference to the executed file");
+        if (exec.contains("{socket}") && socket == null) throw new IllegalArgumentException(
+                "Execution template references a socket, but the server does not listen on a socket");
+        if (socket != null) exec = exec.replace("{socket}", socket.toString());
         ProcessBuilder builder = new ProcessBuilder(exec.replace("{file}", file).split(" "));
 
         logger.debug("Redirect output to log file");
@@ -19,34 +19,62 @@ package org.seekers.server;
 
 import com.google.common.hash.Hashing;
 import io.grpc.Server;
-import io.grpc.ServerBuilder;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
 import io.grpc.Status;
 import io.grpc.StatusException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.apiguardian.api.API;
 import org.ini4j.Ini;
 import org.seekers.core.Game;
 import org.seekers.core.Player;
-import org.seekers.core.Seeker;
 import org.seekers.core.Vector2D;
 import org.seekers.api.*;
+import org.seekers.server.proto.CommandAck;
+import org.seekers.server.proto.CommandBatch;
+import org.seekers.server.proto.Encoding;
+import org.seekers.server.proto.PlayUpdate;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.ShareRequest;
+import org.seekers.server.proto.ShareResponse;
+import org.seekers.server.proto.SpectateRequest;
+import org.seekers.server.proto.StateRequest;
+import org.seekers.server.proto.StateUpdate;
+import org.seekers.server.proto.SubscribeRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckReturnValue;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * The {@code SeekersServer} class represents the server-side implementation of the Seekers game. It provides the server
  * functionality for hosting the game, handling client requests, and managing game state. The server uses gRPC for
  * communication with clients.
+ * <p>
+ * A server can host any number of {@link Match matches} at the same time. Players join the oldest match with a free
+ * slot, all further calls are routed to the match of their token.
  *
  * @author Karl Zschiebsch
  * @author Supergecki
@@ -57,24 +85,47 @@ import java.util.function.Function;
 public class SeekersServer {
     private static final Logger logger = LoggerFactory.getLogger(SeekersServer.class);
 
-    private final @Nonnull Server server; // gRPC server socket
+    private final @Nonnull Transport transport; // gRPC transport
+    private final @Nonnull List<Server> servers; // gRPC server sockets
+    private final @Nullable Metrics metrics; // Metrics endpoint
+    private final @Nullable Feed feed; // Server-Sent Events endpoint
     private final @Nonnull Function<Ini, Game> creator; // Game creator
     private final @Nonnull Ini config; // Configuration
 
     // Collections
-    private final @Nonnull Map<String, Player> players = new HashMap<>();
     private final @Nonnull Map<String, String> commands = new HashMap<>();
-    private final @Nonnull List<SeekersDriver> drivers = new ArrayList<>();
     private final @Nonnull List<Section> sections = new ArrayList<>();
 
+    // Matches
+    private final @Nonnull List<Match> matches = new CopyOnWriteArrayList<>();
+    private final @Nonnull Map<String, Match> tokens = new ConcurrentHashMap<>();
+    private final @Nonnull AtomicInteger ids = new AtomicInteger();
+
     /**
-     * Constructs a new {@code SeekersServer} instance for the port 7777.
+     * Constructs a new {@code SeekersServer} instance for the listeners of the transport section of the config.
      *
      * @param config  the config
      */
     @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
     public SeekersServer(@Nonnull Ini config, @Nonnull Function<Ini, Game> creator) {
-        this.server = ServerBuilder.forPort(7777).addService(new SeekersService()).build();
+        this.transport = new Transport(Transport.Properties.from(config));
+        Metrics.Properties metricsProperties = Metrics.Properties.from(config);
+        this.metrics = metricsProperties.isEnabled() ? new Metrics(metricsProperties) : null;
+        Feed.Properties feedProperties = Feed.Properties.from(config);
+        this.feed = feedProperties.isEnabled() ? new Feed(feedProperties) : null;
+        List<ServerServiceDefinition> services = List.of(bindSeekersService(), bindStreamService());
+        if (metrics != null) {
+            services = services.stream().map(service -> ServerInterceptors.intercept(service, metrics.interceptor()))
+                    .collect(Collectors.toList());
+            metrics.gauge("seekers_matches", "Running matches", matches::size);
+            metrics.gauge("seekers_subscribers", "Clients subscribed to states",
+                    () -> matches.stream().mapToLong(Match::getSubscriberCount).sum());
+            metrics.gauge("seekers_spectators", "Read-only observers of matches",
+                    () -> matches.stream().mapToLong(Match::getSpectatorCount).sum());
+            metrics.gauge("seekers_waiting_calls", "Calls waiting for the next tick",
+                    () -> matches.stream().mapToLong(Match::getWaitingCount).sum());
+        }
+        this.servers = transport.build(services);
         this.creator = creator;
         this.config = config;
 
@@ -98,13 +149,66 @@ public class SeekersServer {
     }
 
     /**
-     * Starts the server and rotates the matching schedule of the tournament. This will start the game matches.
+     * Binds the {@link SeekersService}. Responses of the command call are written from the serialized bytes of the
+     * snapshot of their match.
+     *
+     * @return the definition of the service
+     */
+    private ServerServiceDefinition bindSeekersService() {
+        ServerServiceDefinition definition = new SeekersService().bindService();
+        var builder = ServerServiceDefinition.builder(SeekersGrpc.SERVICE_NAME);
+        for (ServerMethodDefinition<?, ?> method : definition.getMethods()) {
+            if (method.getMethodDescriptor().getFullMethodName()
+                    .equals(SeekersGrpc.getCommandMethod().getFullMethodName())) continue;
+            builder.addMethod(method);
+        }
+        @SuppressWarnings("unchecked")
+        var command = (ServerMethodDefinition<CommandRequest, CommandResponse>)
+                definition.getMethod(SeekersGrpc.getCommandMethod().getFullMethodName());
+        var descriptor = command.getMethodDescriptor().toBuilder()
+                .setResponseMarshaller(Snapshot.marshaller(command.getMethodDescriptor().getResponseMarshaller()))
+                .build();
+        return builder.addMethod(descriptor, command.getServerCallHandler()).build();
+    }
+
+    /**
+     * Binds the {@link StreamService}. Keyframes of the spectate call are written from the serialized bytes of the
+     * snapshot of their match, so every keyframe is serialized once for all spectators.
+     *
+     * @return the definition of the service
+     */
+    private ServerServiceDefinition bindStreamService() {
+        ServerServiceDefinition definition = new StreamService().bindService();
+        var builder = ServerServiceDefinition.builder(SeekersStreamGrpc.SERVICE_NAME);
+        for (ServerMethodDefinition<?, ?> method : definition.getMethods()) {
+            if (method.getMethodDescriptor().getFullMethodName()
+                    .equals(SeekersStreamGrpc.getSpectateMethod().getFullMethodName())) continue;
+            builder.addMethod(method);
+        }
+        @SuppressWarnings("unchecked")
+        var spectate = (ServerMethodDefinition<SpectateRequest, StateUpdate>)
+                definition.getMethod(SeekersStreamGrpc.getSpectateMethod().getFullMethodName());
+        var descriptor = spectate.getMethodDescriptor().toBuilder()
+                .setResponseMarshaller(Snapshot.marshaller(spectate.getMethodDescriptor().getResponseMarshaller()))
+                .build();
+        return builder.addMethod(descriptor, spectate.getServerCallHandler()).build();
+    }
+
+    /**
+     * Starts the server and rotates the matching schedule of the tournament. This will start the game matches. If the
+     * warmup is enabled, it runs before the listeners start, so the first matches already run compiled code.
      *
      * @throws IOException if unable to bind
      */
     public void start() throws IOException {
-        server.start();
-        logger.info("Server started");
+        Warmup.Properties warmup = Warmup.Properties.from(config);
+        if (warmup.isEnabled()) logger.info("Warmup finished: {}", new Warmup(warmup, config, creator).run());
+        for (Server server : servers) {
+            server.start();
+            logger.info("Server started on {}", server.getListenSockets());
+        }
+        if (metrics != null) metrics.start();
+        if (feed != null) feed.start();
     }
 
     /**
@@ -113,43 +217,174 @@ public class SeekersServer {
      * @throws InterruptedException if the shutdown is interrupted.
      */
     public void stop() throws InterruptedException {
-        server.shutdown().awaitTermination(5L, TimeUnit.SECONDS);
+        for (Server server : servers) {
+            server.shutdown();
+        }
+        for (Server server : servers) {
+            server.awaitTermination(5L, TimeUnit.SECONDS);
+        }
+        transport.shutdown();
+        if (metrics != null) metrics.stop();
+        if (feed != null) feed.stop();
         logger.info("Server shutdown");
     }
 
-    private Game game;
+    /**
+     * @return true if the server was stopped and all of its calls completed
+     */
+    public boolean isTerminated() {
+        return servers.stream().allMatch(Server::isTerminated);
+    }
+
+    /**
+     * @return the port of the TCP listener, or -1 if the server was not started
+     */
+    public int getPort() {
+        return servers.get(0).getPort();
+    }
+
+    /**
+     * @return the metrics of the server, or null if metrics are disabled
+     */
+    @Nullable
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the Server-Sent Events feed of the server, or null if the feed is disabled
+     */
+    @Nullable
+    public Feed getFeed() {
+        return feed;
+    }
+
+    /**
+     * @return the path of the Unix domain socket of the server, or null if the server does not listen on a socket
+     */
+    @Nullable
+    public Path getSocket() {
+        return transport.getSocket();
+    }
 
     /**
      * Tries to host a single file over a language loader. If no language loader was found that can host the specified
      * file, it must be hosted manually.
      *
-     * @param file the name of the file
+     * @param match the match of the file
+     * @param file  the name of the file
      */
-    private void findDriver(String file) {
+    private void findDriver(Match match, String file) {
         for (var entry : commands.entrySet()) {
             if (file.endsWith(entry.getKey())) {
-                drivers.add(new SeekersDriver(file, entry.getValue()));
+                match.getDrivers().add(new SeekersDriver(file, entry.getValue(), transport.getSocket()));
                 return;
             }
         }
         logger.warn("Could not find loader for file {}", file);
     }
 
-    public void playMatch(List<String> match) {
-        game = creator.apply(config);
-        game.setOnGameFinished(instance -> {
-            for (var driver : drivers) {
-                driver.close();
-            }
-            try {
-                stop();
-            } catch (InterruptedException ex) {
-                logger.error("Could not stop server", ex);
-                Thread.currentThread().interrupt();
-            }
+    /**
+     * Plays all matches of the tournament, at most the given number of them at the same time. Whenever a match
+     * finishes, the next one of the schedule starts, and the server stops once the schedule is exhausted and the last
+     * match finished. The server is stopped on its own thread, so the clock of the last game is never blocked by the
+     * shutdown.
+     *
+     * @param tournament the tournament with the schedule of the matches
+     * @param concurrent the number of matches that run at the same time
+     */
+    public void playTournament(@Nonnull Tournament tournament, int concurrent) {
+        if (concurrent < 1) throw new IllegalArgumentException("At least one match must run at the same time");
+        Queue<List<String>> schedule = new ConcurrentLinkedQueue<>(tournament.getMatches());
+        AtomicInteger running = new AtomicInteger(concurrent);
+        for (int i = 0; i < concurrent; i++) {
+            playNext(schedule, running);
+        }
+    }
+
+    private void playNext(@Nonnull Queue<List<String>> schedule, @Nonnull AtomicInteger running) {
+        List<String> files = schedule.poll();
+        if (files != null) {
+            playMatch(files).getGame().setOnGameFinished(instance -> playNext(schedule, running));
+        } else if (running.decrementAndGet() == 0) {
+            Thread thread = new Thread(() -> {
+                try {
+                    stop();
+                } catch (InterruptedException ex) {
+                    logger.error("Could not stop server", ex);
+                    Thread.currentThread().interrupt();
+                }
+            }, "seekers-shutdown");
+            thread.start();
+        }
+    }
+
+    /**
+     * Creates a new match with its own game and starts it. The drivers of the files are started and join the oldest
+     * match with a free slot. The server keeps running after the match finished, use
+     * {@link #playTournament(Tournament, int)} to stop it after a schedule of matches.
+     *
+     * @param files the files of the match
+     * @return the new match
+     */
+    public Match playMatch(List<String> files) {
+        Match match = new Match(String.valueOf(ids.incrementAndGet()), creator.apply(config), files);
+        matches.add(match);
+        match.record(config);
+        match.synchronize(config);
+        match.limit(config);
+        if (metrics != null) match.measure(metrics);
+        if (match.getInterest() != null) {
+            if (feed != null || !transport.getProperties().getSharedMemory().isEmpty())
+                logger.warn("Match {} limits states to areas of interest, its state is neither fed nor shared",
+                        match.getId());
+        } else {
+            if (feed != null) feed.attach(match);
+            if (!transport.getProperties().getSharedMemory().isEmpty())
+                match.share(Path.of(transport.getProperties().getSharedMemory()));
+        }
+        match.getGame().setOnGameFinished(instance -> {
+            matches.remove(match);
+            tokens.values().removeIf(match::equals);
         });
-        for (String player : match) findDriver(player);
-        game.play();
+        for (String file : files) findDriver(match, file);
+        logger.info("Match {} started", match.getId());
+        match.getGame().play();
+        return match;
+    }
+
+    /**
+     * @return all running matches
+     */
+    @Nonnull
+    public List<Match> getMatches() {
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * @param id the id of the match
+     * @return the running match with the id, or null if there is none
+     */
+    @Nullable
+    public Match getMatch(@Nonnull String id) {
+        for (Match match : matches) {
+            if (match.getId().equals(id)) return match;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the match of a token and logs an error if there is none.
+     *
+     * @param token the token of the player
+     * @return the match of the token, or null if the token is not valid
+     */
+    @Nullable
+    @CheckReturnValue
+    private Match route(@Nonnull String token) {
+        Match match = tokens.get(token);
+        if (match == null) logger.error("Player {} is not part of any match", token);
+        return match;
     }
 
     /**
@@ -173,34 +408,34 @@ public class SeekersServer {
          */
         @Override
         public void command(CommandRequest request, StreamObserver<CommandResponse> responseObserver) {
-            Player player = players.get(request.getToken());
+            Match match = route(request.getToken());
+            Player player = match != null ? match.getPlayer(request.getToken()) : null;
             if (player != null) {
+                CommandEvent event = CommandEvent.TYPE.isEnabled() ? new CommandEvent() : null;
+                if (event != null) event.begin();
+                match.arrive(player, match.getGame().getPassedPlaytime());
+                int changed = 0;
                 for (Command command : request.getCommandsList()) {
-                    Seeker seeker = player.getSeekers().get(command.getSeekerId());
-                    if (seeker != null) {
-                        Vector2D target = new Vector2D(command.getTarget().getX(), command.getTarget().getY());
-                        if (seeker.getMagnet() != command.getMagnet() || !seeker.getTarget().equals(target)) {
-                            seeker.changeTarget(target);
-                            seeker.changeMagnet(command.getMagnet());
-                        }
-                    }
+                    if (match.apply(player, command.getSeekerId(), new Vector2D(command.getTarget().getX(),
+                            command.getTarget().getY()), command.getMagnet())) changed++;
                 }
-                responseObserver.onNext(CommandResponse.newBuilder()
-                        .addAllCamps(Transformers.CAMP_TRANSFORMER.transformAll(game.getCamps()))
-                        .addAllPlayers(Transformers.PLAYER_TRANSFORMER.transformAll(game.getPlayers()))
-                        .addAllSeekers(Transformers.SEEKER_TRANSFORMER.transformAll(game.getSeekers()))
-                        .addAllGoals(Transformers.GOAL_TRANSFORMER.transformAll(game.getGoals())).build());
+                if (event != null && event.shouldCommit()) {
+                    event.method = "Seekers";
+                    event.player = player.toString();
+                    event.commands = request.getCommandsCount();
+                    event.changed = changed;
+                    event.commit();
+                }
+                responseObserver.onNext(match.response(match.snapshot(), player));
                 responseObserver.onCompleted();
             } else {
-                logger.error("Player {} is not part of the game", request.getToken());
                 responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
             }
         }
 
         /**
-         * Handles the "join" request from a client. If there are open slots in the game, a new player is added and
-         * assigned a token. The player details are stored in the players map along with the associated token and
-         * dispatch helper.
+         * Handles the "join" request from a client. If there are open slots in a match, a new player is added to the
+         * oldest of them and assigned a token. The token routes all further requests of the player to the match.
          *
          * @param request          The join request.
          * @param responseObserver The response observer.
@@ -208,9 +443,13 @@ public class SeekersServer {
          */
         @Override
         public synchronized void join(JoinRequest request, StreamObserver<JoinResponse> responseObserver) {
-            if (players.size() < 2) {
+            for (Match match : matches) {
+                if (!match.hasFreeSlot()) continue;
                 try {
-                    Player player = game.getPlayers().get(players.size());
+                    String token = Hashing.fingerprint2011().hashString("" + Math.random(),
+                            Charset.defaultCharset()).toString();
+                    Player player = match.join(token);
+                    if (player == null) continue;
                     if (request.hasName() && !request.getName().isBlank()) {
                         logger.debug("Used name {}", request.getName());
                         player.setName(request.getName());
@@ -219,9 +458,7 @@ public class SeekersServer {
                         logger.debug("Used color {}", request.getColor());
                         player.setColor(request.getColor());
                     }
-                    String token = Hashing.fingerprint2011().hashString("" + Math.random(),
-                            Charset.defaultCharset()).toString();
-                    players.put(token, player);
+                    tokens.put(token, match);
 
                     responseObserver.onNext(JoinResponse.newBuilder().setPlayerId(player.toString())
                             .setToken(token).addAllSections(sections).build());
@@ -230,11 +467,234 @@ public class SeekersServer {
                     responseObserver.onError(e);
                     logger.warn(e.getMessage(), e);
                 }
+                return;
+            }
+            logger.error("Player {} tried to join game, but all matches are already full", request.getName());
+            responseObserver.onError(new StatusException(Status.RESOURCE_EXHAUSTED));
+        }
+
+    }
+
+    /**
+     * The {@code StreamService} class handles the streaming extension of the api. Instead of polling the state with
+     * the unary command call, clients subscribe once and receive the state after every tick. Commands are sent with a
+     * separate call that does not return the state.
+     *
+     * @author Karl Zschiebsch
+     * @since 0.1.0
+     */
+    @API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+    protected class StreamService extends SeekersStreamGrpc.SeekersStreamImplBase {
+
+        /**
+         * Handles the "subscribe" request from a client. The state of the game is pushed after every tick until the
+         * game finishes or the client cancels the call.
+         *
+         * @param request          The subscribe request.
+         * @param responseObserver The response observer.
+         * @apiNote Will throw {@code PERMISSION_DENIED} if the token is not valid.
+         */
+        @Override
+        public void subscribe(SubscribeRequest request, StreamObserver<StateUpdate> responseObserver) {
+            Match match = route(request.getToken());
+            if (match != null) {
+                var observer = (ServerCallStreamObserver<StateUpdate>) responseObserver;
+                var subscriber = new StateStream<>(observer, update -> update, request.getDelta(),
+                        request.getEncoding() == Encoding.PACKED);
+                observer.setOnCancelHandler(() -> match.unsubscribe(subscriber));
+                match.subscribe(subscriber, match.getPlayer(request.getToken()));
+            } else {
+                responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
+            }
+        }
+
+        /**
+         * Handles the "command" request from a client. Updates the target and magnet properties of the specified
+         * seekers.
+         *
+         * @param request          The command batch.
+         * @param responseObserver The response observer.
+         * @apiNote Will throw {@code PERMISSION_DENIED} if the token is not valid. Commands that target seekers the
+         * player does not control will be ignored.
+         */
+        @Override
+        public void command(CommandBatch request, StreamObserver<CommandAck> responseObserver) {
+            Match match = route(request.getToken());
+            Player player = match != null ? match.getPlayer(request.getToken()) : null;
+            if (player != null) {
+                responseObserver.onNext(match.apply(player, request));
+                responseObserver.onCompleted();
+            } else {
+                responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
+            }
+        }
+
+        /**
+         * Handles the "play" stream of a client. The first batch of the stream authenticates the player, every batch
+         * is applied and acknowledged on the stream, and the state of the game is pushed after every tick until the
+         * game finishes.
+         *
+         * @param responseObserver The response observer.
+         * @return The observer of the command batches.
+         * @apiNote Will throw {@code PERMISSION_DENIED} if the token of the first batch is not valid. States and
+         * acknowledgements are only written while the stream is ready. A slow client only receives the latest state,
+         * but every acknowledgement. Will throw {@code RESOURCE_EXHAUSTED} if the client stops reading
+         * acknowledgements.
+         */
+        @Override
+        public StreamObserver<CommandBatch> play(StreamObserver<PlayUpdate> responseObserver) {
+            var observer = (ServerCallStreamObserver<PlayUpdate>) responseObserver;
+            var stream = new StateStream<>(observer, update -> PlayUpdate.newBuilder().setState(update).build(),
+                    false, false);
+            var subscribed = new AtomicReference<Match>();
+            observer.setOnCancelHandler(() -> {
+                Match match = subscribed.get();
+                if (match != null) match.unsubscribe(stream);
+            });
+            return new StreamObserver<>() {
+                private @Nullable Match match;
+                private @Nullable Player player;
+
+                @Override
+                public void onNext(CommandBatch batch) {
+                    if (match == null || player == null) {
+                        match = route(batch.getToken());
+                        player = match != null ? match.getPlayer(batch.getToken()) : null;
+                        if (match == null || player == null) {
+                            responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
+                            return;
+                        }
+                        subscribed.set(match);
+                        if (batch.getEncoding() == Encoding.PACKED) stream.pack();
+                        match.subscribe(stream, player);
+                    }
+                    stream.reply(PlayUpdate.newBuilder().setAck(match.apply(player, batch)).build());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    if (match != null) match.unsubscribe(stream);
+                }
+
+                @Override
+                public void onCompleted() {
+                    if (match != null) match.unsubscribe(stream);
+                    stream.complete();
+                }
+            };
+        }
+
+        /**
+         * Handles the "state" request from a client. Returns the delta from the state of the acknowledged tick to the
+         * current state, or the full state in the requested encoding if the client did not acknowledge a tick of this
+         * game.
+         *
+         * @param request          The state request.
+         * @param responseObserver The response observer.
+         * @apiNote Will throw {@code PERMISSION_DENIED} if the token is not valid.
+         */
+        @Override
+        public void state(StateRequest request, StreamObserver<StateUpdate> responseObserver) {
+            Match match = route(request.getToken());
+            if (match != null) {
+                Snapshot current = match.snapshot();
+                if (request.hasAckTick() && match.getInterest() == null) {
+                    responseObserver.onNext(current.getUpdate(request.getAckTick()));
+                } else {
+                    responseObserver.onNext(match.keyframe(current, match.getPlayer(request.getToken()),
+                            request.getEncoding() == Encoding.PACKED));
+                }
+                responseObserver.onCompleted();
+            } else {
+                responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
+            }
+        }
+
+        /**
+         * Handles the "share" request from a client. Returns the shared memory files of the match of the player.
+         *
+         * @param request          The share request.
+         * @param responseObserver The response observer.
+         * @apiNote Will throw {@code PERMISSION_DENIED} if the token is not valid, {@code UNAVAILABLE} if the server
+         * does not share memory or the match limits states to areas of interest and {@code ALREADY_EXISTS} if another
+         * process created the file of the command ring.
+         */
+        @Override
+        public void share(ShareRequest request, StreamObserver<ShareResponse> responseObserver) {
+            Match match = route(request.getToken());
+            Player player = match != null ? match.getPlayer(request.getToken()) : null;
+            if (player == null) {
+                responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
+                return;
+            }
+            try {
+                CommandRing ring = match.getRing(player, request.getToken());
+                SharedState shared = match.getShared();
+                if (ring == null || shared == null) {
+                    responseObserver.onError(new StatusException(Status.UNAVAILABLE));
+                    return;
+                }
+                responseObserver.onNext(ShareResponse.newBuilder().setState(shared.getPath().toAbsolutePath()
+                        .toString()).setCommands(ring.getPath().toAbsolutePath().toString())
+                        .setPlayer(match.getGame().getPlayers().indexOf(player)).build());
+                responseObserver.onCompleted();
+            } catch (FileAlreadyExistsException e) {
+                logger.error("Command ring {} was created by another process", e.getFile());
+                responseObserver.onError(new StatusException(Status.ALREADY_EXISTS));
+            } catch (IOException e) {
+                logger.error("Could not create command ring", e);
+                responseObserver.onError(new StatusException(Status.INTERNAL.withCause(e)));
+            }
+        }
+
+        /**
+         * Handles the "spectate" request from a client. The state of the match is pushed after every tick until the
+         * game finishes or the client cancels the call. Spectators do not take a player slot and cannot command
+         * seekers.
+         *
+         * @param request          The spectate request.
+         * @param responseObserver The response observer.
+         * @apiNote Will throw {@code NOT_FOUND} if there is no running match with the id and {@code PERMISSION_DENIED}
+         * if the match limits states to areas of interest.
+         */
+        @Override
+        public void spectate(SpectateRequest request, StreamObserver<StateUpdate> responseObserver) {
+            Match match = request.getMatchId().isEmpty() ? matches.stream().findFirst().orElse(null)
+                    : getMatch(request.getMatchId());
+            if (match != null && match.getInterest() != null) {
+                responseObserver.onError(new StatusException(Status.PERMISSION_DENIED
+                        .withDescription("Match limits states to areas of interest")));
+            } else if (match != null) {
+                var observer = (ServerCallStreamObserver<StateUpdate>) responseObserver;
+                var spectator = new StateStream<>(observer, update -> update, false,
+                        request.getEncoding() == Encoding.PACKED);
+                observer.setOnCancelHandler(() -> match.unspectate(spectator));
+                match.spectate(spectator);
             } else {
-                logger.error("Player {} tried to join game, but the game is already full", request.getName());
-                responseObserver.onError(new StatusException(Status.RESOURCE_EXHAUSTED));
+                responseObserver.onError(new StatusException(Status.NOT_FOUND));
             }
         }
 
+        /**
+         * Handles the "await" request from a client. Applies the commands and returns the first state after the tick
+         * of the batch. If there is no newer state yet, the call is parked without blocking a thread and completed
+         * with all other parked calls once the next tick is published.
+         *
+         * @param request          The command batch.
+         * @param responseObserver The response observer.
+         * @apiNote Will throw {@code PERMISSION_DENIED} if the token is not valid.
+         */
+        @Override
+        public void await(CommandBatch request, StreamObserver<StateUpdate> responseObserver) {
+            Match match = route(request.getToken());
+            Player player = match != null ? match.getPlayer(request.getToken()) : null;
+            if (player != null) {
+                match.apply(player, request);
+                match.await((ServerCallStreamObserver<StateUpdate>) responseObserver, request.getTick(), player,
+                        request.getEncoding() == Encoding.PACKED);
+            } else {
+                responseObserver.onError(new StatusException(Status.PERMISSION_DENIED));
+            }
+        }
     }
 }
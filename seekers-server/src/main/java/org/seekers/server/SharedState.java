@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import org.apiguardian.api.API;
+import org.seekers.core.Camp;
+import org.seekers.core.Game;
+import org.seekers.core.Goal;
+import org.seekers.core.Physical;
+import org.seekers.core.Player;
+import org.seekers.core.Seeker;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Publishes the state of a game after every tick into a memory-mapped file, so that drivers on the same host can read
+ * it without a call and without deserializing it. The file has a fixed little-endian layout:
+ * <pre>
+ *  0  int    magic, "SKST"
+ *  4  int    version of the layout
+ *  8  long   sequence, odd while the state is written
+ * 16  long   tick
+ * 24  int    number of players, camps, seekers and goals
+ * 40         players: double score
+ *            camps:   int player, int padding, double x, y, width, height
+ *            seekers: int player, int disabled, double position x, y, velocity x, y, acceleration x, y, target x, y,
+ *                     magnet
+ *            goals:   int camp or -1, int time owned, double position x, y, velocity x, y, acceleration x, y
+ * </pre>
+ * Players, camps, seekers and goals are referenced by their index in the lists of the game, which never change during
+ * a game. The sequence works as a seqlock: a reader reads the sequence, copies the state and reads the sequence again.
+ * The copy is consistent if both sequences are equal and even.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class SharedState implements AutoCloseable {
+
+    public static final int MAGIC = 0x54534B53;
+    public static final int VERSION = 1;
+
+    static final int SEQUENCE = 8;
+    static final int TICK = 16;
+    static final int COUNTS = 24;
+    static final int DATA = 40;
+    static final int PLAYER_SIZE = 8;
+    static final int CAMP_SIZE = 40;
+    static final int SEEKER_SIZE = 80;
+    static final int GOAL_SIZE = 56;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private final @Nonnull Game game;
+    private final @Nonnull Path path;
+    private final @Nonnull FileChannel channel;
+    private final @Nonnull MappedByteBuffer buffer;
+    private long sequence = 0;
+    // Indices of players and camps by id, only used by the thread that publishes
+    private int[] indices = new int[0];
+
+    /**
+     * Creates the file of the state and writes the header. The file is only readable and writable by the owner where
+     * the file system supports it, and an existing file is never reused, as another process could have created it.
+     *
+     * @param game the published game
+     * @param path the file of the state
+     * @throws java.nio.file.FileAlreadyExistsException if the file exists
+     * @throws IOException                               if the file could not be mapped
+     */
+    public SharedState(@Nonnull Game game, @Nonnull Path path) throws IOException {
+        this.game = game;
+        this.path = path;
+        this.channel = CommandRing.createPrivate(path);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(game.getPlayers().size(),
+                game.getCamps().size(), game.getSeekers().size(), game.getGoals().size()));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION);
+        buffer.putInt(COUNTS, game.getPlayers().size()).putInt(COUNTS + 4, game.getCamps().size())
+                .putInt(COUNTS + 8, game.getSeekers().size()).putInt(COUNTS + 12, game.getGoals().size());
+        LONGS.setRelease(buffer, SEQUENCE, sequence);
+    }
+
+    /**
+     * @return the size of a state file in bytes
+     */
+    static int size(int players, int camps, int seekers, int goals) {
+        return DATA + players * PLAYER_SIZE + camps * CAMP_SIZE + seekers * SEEKER_SIZE + goals * GOAL_SIZE;
+    }
+
+    /**
+     * Writes the current state of the game. Must be called by the thread that updates the game. Players and camps are
+     * looked up by id in a table that is filled once per state, so publishing is linear in the number of entities.
+     */
+    public void publish() {
+        LONGS.setOpaque(buffer, SEQUENCE, ++sequence);
+        VarHandle.storeStoreFence();
+
+        buffer.putLong(TICK, game.getPassedPlaytime());
+        List<Player> players = game.getPlayers();
+        List<Camp> camps = game.getCamps();
+        int ids = 0;
+        for (Player player : players) ids = Math.max(ids, player.getId() + 1);
+        for (Camp camp : camps) ids = Math.max(ids, camp.getId() + 1);
+        if (indices.length < ids) indices = new int[ids];
+        for (int i = 0; i < players.size(); i++) indices[players.get(i).getId()] = i;
+        for (int i = 0; i < camps.size(); i++) indices[camps.get(i).getId()] = i;
+        int offset = DATA;
+        for (Player player : players) {
+            buffer.putDouble(offset, player.getScore());
+            offset += PLAYER_SIZE;
+        }
+        for (Camp camp : camps) {
+            buffer.putInt(offset, indices[camp.getPlayer().getId()]);
+            buffer.putDouble(offset + 8, camp.getPosition().getX()).putDouble(offset + 16, camp.getPosition().getY());
+            buffer.putDouble(offset + 24, camp.getProperties().getWidth())
+                    .putDouble(offset + 32, camp.getProperties().getHeight());
+            offset += CAMP_SIZE;
+        }
+        for (Seeker seeker : game.getSeekers()) {
+            buffer.putInt(offset, indices[seeker.getPlayer().getId()]);
+            buffer.putInt(offset + 4, seeker.isSeekerDisabled() ? 1 : 0);
+            physical(seeker, offset + 8);
+            buffer.putDouble(offset + 56, seeker.getTarget().getX()).putDouble(offset + 64, seeker.getTarget().getY());
+            buffer.putDouble(offset + 72, seeker.getMagnet());
+            offset += SEEKER_SIZE;
+        }
+        for (Goal goal : game.getGoals()) {
+            buffer.putInt(offset, goal.getCapture() != null ? indices[goal.getCapture().getId()] : -1);
+            buffer.putInt(offset + 4, goal.getTimeOwned());
+            physical(goal, offset + 8);
+            offset += GOAL_SIZE;
+        }
+
+        LONGS.setRelease(buffer, SEQUENCE, ++sequence);
+    }
+
+    private void physical(Physical<?> physical, int offset) {
+        buffer.putDouble(offset, physical.getPosition().getX()).putDouble(offset + 8, physical.getPosition().getY());
+        buffer.putDouble(offset + 16, physical.getVelocity().getX())
+                .putDouble(offset + 24, physical.getVelocity().getY());
+        buffer.putDouble(offset + 32, physical.getAcceleration().getX())
+                .putDouble(offset + 40, physical.getAcceleration().getY());
+    }
+
+    /**
+     * Copies a consistent state from a mapped state file. Retries while the state is written.
+     *
+     * @param mapped the mapped state file
+     * @param into   the buffer the state is copied into, with the same size as the file
+     * @return the tick of the copied state
+     */
+    public static long read(@Nonnull ByteBuffer mapped, @Nonnull ByteBuffer into) {
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        while (true) {
+            long before = (long) LONGS.getAcquire(mapped, SEQUENCE);
+            if ((before & 1) == 0) {
+                into.clear();
+                into.put(mapped.duplicate().clear());
+                VarHandle.loadLoadFence();
+                if ((long) LONGS.getOpaque(mapped, SEQUENCE) == before) {
+                    return into.order(ByteOrder.LITTLE_ENDIAN).getLong(TICK);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Nonnull
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Closes and deletes the file. Drivers that still map it keep their mapping.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+}
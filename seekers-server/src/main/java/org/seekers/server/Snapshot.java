@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import com.google.common.collect.MapMaker;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.UnsafeByteOperations;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import org.seekers.api.CampOuterClass;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.GoalOuterClass;
+import org.seekers.api.PhysicalOuterClass;
+import org.seekers.api.SeekerOuterClass;
+import org.seekers.core.SpatialIndex;
+import org.seekers.server.proto.GoalDelta;
+import org.seekers.server.proto.PackedState;
+import org.seekers.server.proto.SeekerDelta;
+import org.seekers.server.proto.StateUpdate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Immutable state of a game after a tick, serialized once. All responses of the same tick share the serialized
+ * bytes: streams wrap them without a copy, and unary responses are written from them by the
+ * {@link #marshaller(MethodDescriptor.Marshaller) marshaller} instead of serializing the message again. The keyframes
+ * are serialized at most once as well, so any number of spectators share their {@link #getEncoded(StateUpdate) bytes}.
+ * The serialized bytes are found by the identity of the message in a map with weak keys, so the lookup does not
+ * depend on the number of matches and the entries vanish with the messages.
+ * <p>
+ * Every value of the seekers and goals remembers the tick of the first snapshot that saw its current value. A client
+ * that applied the snapshot of a base tick only needs the values that changed after it, which allows
+ * {@link #getUpdate(long) deltas} to any earlier snapshot of the same game without keeping a history.
+ * <p>
+ * The {@link #getPacked() packed} keyframe is only built for clients that asked for it. It is built by the first of
+ * them, which is the tick handler of the game if a packed client is subscribed or waiting. The same holds for the
+ * {@link #getView(String, Interest) views} of players if the server limits states to their area of interest.
+ *
+ * @author Karl Zschiebsch
+ */
+final class Snapshot {
+
+    // Values of a seeker
+    private static final int POSITION_X = 0;
+    private static final int POSITION_Y = 1;
+    private static final int VELOCITY_X = 2;
+    private static final int VELOCITY_Y = 3;
+    private static final int ACCELERATION_X = 4;
+    private static final int ACCELERATION_Y = 5;
+    private static final int TARGET_X = 6;
+    private static final int TARGET_Y = 7;
+    private static final int MAGNET = 8;
+    private static final int SEEKER_VALUES = 9;
+    // Values of a goal, the physical values are shared with seekers
+    private static final int CAMP = 6;
+    private static final int GOAL_VALUES = 7;
+
+    // Serialized bytes by message, compared by identity
+    private static final ConcurrentMap<Object, byte[]> SERIALIZED = new MapMaker().weakKeys().makeMap();
+
+    private final long tick;
+    private final long first;
+    private final @Nonnull CommandResponse response;
+    private final @Nonnull byte[] bytes;
+    private final @Nonnull StateUpdate update;
+    private @Nullable Supplier<PackedState> packer;
+    private @Nullable StateUpdate packed;
+    private @Nullable byte[] updateBytes;
+    private @Nullable byte[] packedBytes;
+    private final @Nonnull Map<String, StateUpdate> views = new HashMap<>();
+    private final @Nonnull Map<String, CommandResponse> viewResponses = new HashMap<>();
+    private @Nullable SpatialIndex seekerIndex;
+    private @Nullable SpatialIndex goalIndex;
+
+    private final @Nonnull double[] seekerValues;
+    private final @Nonnull long[] seekerChanges;
+    private final @Nonnull double[] goalValues;
+    private final @Nonnull long[] goalChanges;
+    private @Nullable StateUpdate delta;
+
+    /**
+     * Serializes the state of a tick and finds the values that changed since the previous snapshot.
+     *
+     * @param tick     the tick of the state
+     * @param response the state
+     * @param packer   packs the same state into columns
+     * @param previous the previous snapshot of the same game, or null if this is the first one
+     */
+    Snapshot(long tick, @Nonnull CommandResponse response, @Nonnull Supplier<PackedState> packer,
+             @Nullable Snapshot previous) {
+        this.tick = tick;
+        this.response = response;
+        this.packer = packer;
+        this.bytes = response.toByteArray();
+        SERIALIZED.put(response, bytes);
+        this.update = StateUpdate.newBuilder().setTick(tick).setState(getState()).build();
+
+        this.seekerValues = new double[response.getSeekersCount() * SEEKER_VALUES];
+        for (int i = 0; i < response.getSeekersCount(); i++) {
+            SeekerOuterClass.Seeker seeker = response.getSeekers(i);
+            physical(seeker.getPhysical(), seekerValues, i * SEEKER_VALUES);
+            seekerValues[i * SEEKER_VALUES + TARGET_X] = seeker.getTarget().getX();
+            seekerValues[i * SEEKER_VALUES + TARGET_Y] = seeker.getTarget().getY();
+            seekerValues[i * SEEKER_VALUES + MAGNET] = seeker.getMagnet();
+        }
+        Map<String, Integer> camps = new HashMap<>();
+        for (CampOuterClass.Camp camp : response.getCampsList()) {
+            camps.put(camp.getId(), camps.size() + 1);
+        }
+        this.goalValues = new double[response.getGoalsCount() * GOAL_VALUES];
+        for (int i = 0; i < response.getGoalsCount(); i++) {
+            GoalOuterClass.Goal goal = response.getGoals(i);
+            physical(goal.getPhysical(), goalValues, i * GOAL_VALUES);
+            goalValues[i * GOAL_VALUES + CAMP] = camps.getOrDefault(goal.getCampId(), 0);
+        }
+
+        if (previous != null && previous.seekerValues.length == seekerValues.length
+                && previous.goalValues.length == goalValues.length) {
+            this.first = previous.first;
+            this.seekerChanges = changes(previous.seekerValues, previous.seekerChanges, seekerValues);
+            this.goalChanges = changes(previous.goalValues, previous.goalChanges, goalValues);
+        } else {
+            this.first = tick;
+            this.seekerChanges = new long[seekerValues.length];
+            this.goalChanges = new long[goalValues.length];
+            Arrays.fill(seekerChanges, tick);
+            Arrays.fill(goalChanges, tick);
+        }
+    }
+
+    private static void physical(PhysicalOuterClass.Physical physical, double[] values, int offset) {
+        values[offset + POSITION_X] = physical.getPosition().getX();
+        values[offset + POSITION_Y] = physical.getPosition().getY();
+        values[offset + VELOCITY_X] = physical.getVelocity().getX();
+        values[offset + VELOCITY_Y] = physical.getVelocity().getY();
+        values[offset + ACCELERATION_X] = physical.getAcceleration().getX();
+        values[offset + ACCELERATION_Y] = physical.getAcceleration().getY();
+    }
+
+    private long[] changes(double[] before, long[] changed, double[] after) {
+        long[] changes = new long[after.length];
+        for (int i = 0; i < after.length; i++) {
+            changes[i] = Double.compare(before[i], after[i]) == 0 ? changed[i] : tick;
+        }
+        return changes;
+    }
+
+    long getTick() {
+        return tick;
+    }
+
+    @Nonnull
+    CommandResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the size of the serialized response in bytes
+     */
+    int getSize() {
+        return bytes.length;
+    }
+
+    /**
+     * Returns the serialized form of a keyframe of this snapshot. Every keyframe is serialized by the first call, from
+     * then on the {@link #marshaller(MethodDescriptor.Marshaller) marshaller} writes it from the same bytes.
+     *
+     * @param update the message
+     * @return the serialized keyframe, which must not be modified, or null if the message is not a keyframe of this
+     * snapshot
+     */
+    @Nullable
+    synchronized byte[] getEncoded(@Nonnull StateUpdate update) {
+        if (update == this.update) {
+            if (updateBytes == null) {
+                updateBytes = update.toByteArray();
+                SERIALIZED.put(update, updateBytes);
+            }
+            return updateBytes;
+        }
+        if (update == packed) {
+            if (packedBytes == null) {
+                packedBytes = packed.toByteArray();
+                SERIALIZED.put(packed, packedBytes);
+            }
+            return packedBytes;
+        }
+        return null;
+    }
+
+    /**
+     * @return the serialized response, wrapped without a copy
+     */
+    @Nonnull
+    ByteString getState() {
+        return UnsafeByteOperations.unsafeWrap(bytes);
+    }
+
+    /**
+     * @return the keyframe of this snapshot
+     */
+    @Nonnull
+    StateUpdate getUpdate() {
+        return update;
+    }
+
+    /**
+     * @return the keyframe of this snapshot with the state packed into columns
+     */
+    @Nonnull
+    synchronized StateUpdate getPacked() {
+        if (packed == null) {
+            packed = StateUpdate.newBuilder().setTick(tick).setPacked(packer.get()).build();
+            packer = null;
+        }
+        return packed;
+    }
+
+    /**
+     * Returns the view of a player on this snapshot. The positions are indexed by the first call, the view of every
+     * player is built once.
+     *
+     * @param player   the id of the player
+     * @param interest the area of interest of the players
+     * @return the keyframe with the entities in the area of interest of the player
+     */
+    @Nonnull
+    synchronized StateUpdate getView(@Nonnull String player, @Nonnull Interest interest) {
+        StateUpdate view = views.get(player);
+        if (view == null) {
+            if (seekerIndex == null || goalIndex == null) {
+                seekerIndex = interest.index(seekerValues.length / SEEKER_VALUES,
+                        i -> seekerValues[i * SEEKER_VALUES + POSITION_X],
+                        i -> seekerValues[i * SEEKER_VALUES + POSITION_Y]);
+                goalIndex = interest.index(goalValues.length / GOAL_VALUES,
+                        i -> goalValues[i * GOAL_VALUES + POSITION_X],
+                        i -> goalValues[i * GOAL_VALUES + POSITION_Y]);
+            }
+            view = interest.view(tick, response, player, seekerIndex, goalIndex);
+            views.put(player, view);
+        }
+        return view;
+    }
+
+    /**
+     * Returns the state of the view of a player on this snapshot, as it is answered to unary commands. The state is
+     * parsed once per player from the view.
+     *
+     * @param player   the id of the player
+     * @param interest the area of interest of the players
+     * @return the state with the entities in the area of interest of the player
+     */
+    @Nonnull
+    synchronized CommandResponse getViewResponse(@Nonnull String player, @Nonnull Interest interest) {
+        CommandResponse response = viewResponses.get(player);
+        if (response == null) {
+            ByteString state = getView(player, interest).getState();
+            try {
+                response = CommandResponse.parseFrom(state);
+            } catch (InvalidProtocolBufferException e) {
+                throw new IllegalStateException("Could not parse view of " + player, e);
+            }
+            SERIALIZED.put(response, state.toByteArray());
+            viewResponses.put(player, response);
+        }
+        return response;
+    }
+
+    /**
+     * Returns the delta from the snapshot of the base tick to this one. The keyframe is returned instead if the base
+     * tick is not a tick of the same game before this one, or if the delta would not be smaller than the keyframe. The
+     * last delta is cached, as most clients applied the same previous tick.
+     *
+     * @param base the tick of the last snapshot the client applied
+     * @return the delta or the keyframe
+     */
+    @Nonnull
+    synchronized StateUpdate getUpdate(long base) {
+        if (base < first || base > tick) return update;
+        if (delta != null && delta.getBaseTick() == base) return delta;
+
+        StateUpdate.Builder builder = StateUpdate.newBuilder().setTick(tick).setDelta(true).setBaseTick(base);
+        for (int i = 0; i < seekerValues.length / SEEKER_VALUES; i++) {
+            int offset = i * SEEKER_VALUES;
+            if (!changed(seekerChanges, offset, SEEKER_VALUES, base)) continue;
+            SeekerDelta.Builder seeker = SeekerDelta.newBuilder().setIndex(i);
+            if (seekerChanges[offset + POSITION_X] > base) seeker.setPositionX(seekerValues[offset + POSITION_X]);
+            if (seekerChanges[offset + POSITION_Y] > base) seeker.setPositionY(seekerValues[offset + POSITION_Y]);
+            if (seekerChanges[offset + VELOCITY_X] > base) seeker.setVelocityX(seekerValues[offset + VELOCITY_X]);
+            if (seekerChanges[offset + VELOCITY_Y] > base) seeker.setVelocityY(seekerValues[offset + VELOCITY_Y]);
+            if (seekerChanges[offset + ACCELERATION_X] > base)
+                seeker.setAccelerationX(seekerValues[offset + ACCELERATION_X]);
+            if (seekerChanges[offset + ACCELERATION_Y] > base)
+                seeker.setAccelerationY(seekerValues[offset + ACCELERATION_Y]);
+            if (seekerChanges[offset + TARGET_X] > base) seeker.setTargetX(seekerValues[offset + TARGET_X]);
+            if (seekerChanges[offset + TARGET_Y] > base) seeker.setTargetY(seekerValues[offset + TARGET_Y]);
+            if (seekerChanges[offset + MAGNET] > base) seeker.setMagnet(seekerValues[offset + MAGNET]);
+            builder.addSeekers(seeker);
+        }
+        for (int i = 0; i < goalValues.length / GOAL_VALUES; i++) {
+            int offset = i * GOAL_VALUES;
+            if (!changed(goalChanges, offset, GOAL_VALUES, base)) continue;
+            GoalDelta.Builder goal = GoalDelta.newBuilder().setIndex(i);
+            if (goalChanges[offset + POSITION_X] > base) goal.setPositionX(goalValues[offset + POSITION_X]);
+            if (goalChanges[offset + POSITION_Y] > base) goal.setPositionY(goalValues[offset + POSITION_Y]);
+            if (goalChanges[offset + VELOCITY_X] > base) goal.setVelocityX(goalValues[offset + VELOCITY_X]);
+            if (goalChanges[offset + VELOCITY_Y] > base) goal.setVelocityY(goalValues[offset + VELOCITY_Y]);
+            if (goalChanges[offset + ACCELERATION_X] > base)
+                goal.setAccelerationX(goalValues[offset + ACCELERATION_X]);
+            if (goalChanges[offset + ACCELERATION_Y] > base)
+                goal.setAccelerationY(goalValues[offset + ACCELERATION_Y]);
+            if (goalChanges[offset + CAMP] > base) goal.setCamp((int) goalValues[offset + CAMP]);
+            builder.addGoals(goal);
+        }
+        StateUpdate built = builder.build();
+        if (built.getSerializedSize() >= update.getSerializedSize()) return update;
+        delta = built;
+        return delta;
+    }
+
+    private static boolean changed(long[] changes, int offset, int length, long base) {
+        for (int i = offset; i < offset + length; i++) {
+            if (changes[i] > base) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates a marshaller that writes messages of snapshots from their serialized bytes. Other messages, and
+     * keyframes that were never {@link #getEncoded(StateUpdate) encoded}, are written by the delegate.
+     *
+     * @param delegate the marshaller of the message
+     * @param <T>      type of the message
+     * @return the marshaller for the messages
+     */
+    static <T> MethodDescriptor.Marshaller<T> marshaller(@Nonnull MethodDescriptor.Marshaller<T> delegate) {
+        return new MethodDescriptor.Marshaller<>() {
+            @Override
+            public InputStream stream(T value) {
+                byte[] bytes = SERIALIZED.get(value);
+                if (bytes != null) return new Bytes(bytes);
+                return delegate.stream(value);
+            }
+
+            @Override
+            public T parse(InputStream stream) {
+                return delegate.parse(stream);
+            }
+        };
+    }
+
+    /**
+     * Stream over the serialized bytes. The known length lets gRPC size the frame without reading it first.
+     */
+    private static final class Bytes extends ByteArrayInputStream implements KnownLength {
+        Bytes(@Nonnull byte[] bytes) {
+            super(bytes);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.seekers.server.proto.StateUpdate;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.function.Function;
+
+/**
+ * Sends the states of a game to the stream of a single client. The stream follows the flow control of its call:
+ * messages are only written while the call is ready, otherwise they are held back until the ready handler runs.
+ * <p>
+ * States are dropped, replies are not. At most one state is held back and a newer one replaces it, every replaced
+ * state is reported to the {@link #setOnDropped(Runnable) dropped handler}. Up to {@value #MAX_REPLIES} replies are
+ * queued, the call fails with {@code RESOURCE_EXHAUSTED} on the next one.
+ * <p>
+ * In delta mode every state is sent as a delta to the previously sent one, which the client has applied as messages
+ * of a stream are delivered in order. Packed streams always send packed keyframes.
+ *
+ * @param <T> type of the messages of the stream
+ * @author Karl Zschiebsch
+ */
+final class StateStream<T> {
+
+    static final int MAX_REPLIES = 64;
+
+    private final @Nonnull ServerCallStreamObserver<T> observer;
+    private final @Nonnull Function<StateUpdate, T> wrapper;
+    private final boolean delta;
+    private boolean packed;
+    private boolean shared;
+    private @Nullable Function<Snapshot, StateUpdate> view;
+    private @Nullable Runnable onDropped;
+
+    private @Nullable Snapshot state;
+    private long sent = -1;
+    private final @Nonnull Queue<T> replies = new ArrayDeque<>();
+    private boolean completed = false;
+
+    /**
+     * Must be created before the service method of the call returns, so that the ready handler is registered.
+     *
+     * @param observer the response observer of the call
+     * @param wrapper  wraps a state into a message of the stream
+     * @param delta    if states are sent as deltas
+     * @param packed   if states are sent as packed keyframes
+     */
+    StateStream(@Nonnull ServerCallStreamObserver<T> observer, @Nonnull Function<StateUpdate, T> wrapper,
+                boolean delta, boolean packed) {
+        this.observer = observer;
+        this.wrapper = wrapper;
+        this.delta = delta;
+        this.packed = packed;
+        observer.setOnReadyHandler(this::flush);
+    }
+
+    /**
+     * Sends all following states as packed keyframes. For calls that negotiate the encoding with their first message.
+     */
+    synchronized void pack() {
+        packed = true;
+    }
+
+    /**
+     * Encodes all following keyframes through their snapshot, so that streams which send the same keyframes share
+     * the serialized bytes. For read-only streams, which always send the keyframes of the snapshot.
+     */
+    synchronized void share() {
+        shared = true;
+    }
+
+    /**
+     * Sends all following states as the keyframes of the view, for example the area of interest of a player. For
+     * calls that know their player only after their first message.
+     */
+    synchronized void focus(@Nonnull Function<Snapshot, StateUpdate> view) {
+        this.view = view;
+    }
+
+    /**
+     * Sets the handler that runs whenever a held back state is replaced by a newer one before it was sent.
+     */
+    synchronized void setOnDropped(@Nullable Runnable onDropped) {
+        this.onDropped = onDropped;
+    }
+
+    /**
+     * Sends the state, or replaces the held back state if the call is not ready.
+     */
+    synchronized void publish(@Nonnull Snapshot snapshot) {
+        if (completed) return;
+        if (state != null && onDropped != null) onDropped.run();
+        state = snapshot;
+        flush();
+    }
+
+    /**
+     * Sends a reply to the client, or queues it behind the held back replies if the call is not ready. Replies are
+     * sent in order and before states.
+     */
+    synchronized void reply(@Nonnull T message) {
+        if (completed) return;
+        if (replies.size() >= MAX_REPLIES) {
+            completed = true;
+            replies.clear();
+            state = null;
+            if (!observer.isCancelled()) observer.onError(new StatusException(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Too many unread replies")));
+            return;
+        }
+        replies.add(message);
+        flush();
+    }
+
+    private synchronized void flush() {
+        if (completed || observer.isCancelled()) return;
+        while (observer.isReady()) {
+            if (!replies.isEmpty()) {
+                observer.onNext(replies.remove());
+            } else if (state != null) {
+                StateUpdate update = update(state);
+                if (shared) state.getEncoded(update);
+                observer.onNext(wrapper.apply(update));
+                sent = state.getTick();
+                state = null;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private StateUpdate update(Snapshot snapshot) {
+        if (view != null) return view.apply(snapshot);
+        if (packed) return snapshot.getPacked();
+        return delta ? snapshot.getUpdate(sent) : snapshot.getUpdate();
+    }
+
+    /**
+     * Completes the call. Held back messages are dropped.
+     */
+    synchronized void complete() {
+        if (completed) return;
+        completed = true;
+        if (!observer.isCancelled()) observer.onCompleted();
+    }
+
+    boolean isCancelled() {
+        return observer.isCancelled();
+    }
+}
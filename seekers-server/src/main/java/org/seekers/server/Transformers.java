@@ -17,13 +17,19 @@
 
 package org.seekers.server;
 
+import com.google.protobuf.UnsafeByteOperations;
 import org.apiguardian.api.API;
 import org.seekers.core.*;
 import org.seekers.api.*;
+import org.seekers.server.proto.PackedState;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 
 /**
+ * Transforms the objects of a game into the messages of the api. Ids are the cached {@code toString()} forms of the
+ * compact ids of the objects, so no id strings are built while transforming, only the messages themselves.
+ *
  * @author Karl Zschiebsch
  * @since 0.1.0
  */
@@ -66,4 +72,56 @@ public class Transformers {
                     .setId(input.toString())
                     .setCampId(input.getCamp() != null ? input.getCamp().toString() : "")
                     .addAllSeekerIds(input.getSeekers().keySet()).build();
+
+    /**
+     * Packs the whole state of a game into columns. Players and camps are referenced by their index in the lists of
+     * the game instead of their ids. The indices are looked up by id in a table that is built once per state, so
+     * packing is linear in the number of entities.
+     */
+    public static final @Nonnull Transformer<Game, PackedState> PACKED_TRANSFORMER = input -> {
+        List<Player> players = input.getPlayers();
+        List<Camp> camps = input.getCamps();
+        List<Seeker> seekers = input.getSeekers();
+        List<Goal> goals = input.getGoals();
+        // Ids are unique within a game, so players and camps share the table
+        int ids = 0;
+        for (Player player : players) ids = Math.max(ids, player.getId() + 1);
+        for (Camp camp : camps) ids = Math.max(ids, camp.getId() + 1);
+        int[] indices = new int[ids];
+        for (int i = 0; i < players.size(); i++) indices[players.get(i).getId()] = i;
+        for (int i = 0; i < camps.size(); i++) indices[camps.get(i).getId()] = i;
+        PackedState.Builder builder = PackedState.newBuilder();
+        for (Player player : players) {
+            builder.addPlayerIds(player.getId()).addPlayerScores(player.getScore());
+        }
+        for (Camp camp : camps) {
+            builder.addCampIds(camp.getId()).addCampPlayers(indices[camp.getPlayer().getId()])
+                    .addCampX((float) camp.getPosition().getX()).addCampY((float) camp.getPosition().getY());
+        }
+        byte[] disabled = new byte[(seekers.size() + 7) / 8];
+        byte[] attracting = new byte[disabled.length];
+        byte[] repelling = new byte[disabled.length];
+        for (int i = 0; i < seekers.size(); i++) {
+            Seeker seeker = seekers.get(i);
+            builder.addSeekerIds(seeker.getId()).addSeekerPlayers(indices[seeker.getPlayer().getId()])
+                    .addSeekerX((float) seeker.getPosition().getX()).addSeekerY((float) seeker.getPosition().getY())
+                    .addSeekerVx((float) seeker.getVelocity().getX()).addSeekerVy((float) seeker.getVelocity().getY())
+                    .addSeekerTargetX((float) seeker.getTarget().getX())
+                    .addSeekerTargetY((float) seeker.getTarget().getY());
+            byte bit = (byte) (1 << (i % 8));
+            if (seeker.isSeekerDisabled()) disabled[i / 8] |= bit;
+            if (seeker.getMagnet() > 0) attracting[i / 8] |= bit;
+            if (seeker.getMagnet() < 0) repelling[i / 8] |= bit;
+        }
+        builder.setSeekerDisabled(UnsafeByteOperations.unsafeWrap(disabled))
+                .setSeekerAttracting(UnsafeByteOperations.unsafeWrap(attracting))
+                .setSeekerRepelling(UnsafeByteOperations.unsafeWrap(repelling));
+        for (Goal goal : goals) {
+            builder.addGoalIds(goal.getId())
+                    .addGoalX((float) goal.getPosition().getX()).addGoalY((float) goal.getPosition().getY())
+                    .addGoalVx((float) goal.getVelocity().getX()).addGoalVy((float) goal.getVelocity().getY())
+                    .addGoalCamps(goal.getCapture() != null ? indices[goal.getCapture().getId()] : -1);
+        }
+        return builder.build();
+    };
 }
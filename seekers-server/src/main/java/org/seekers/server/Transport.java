@@ -0,0 +1,477 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.ChannelConfig;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.DefaultChannelConfig;
+import io.grpc.netty.shaded.io.netty.channel.DefaultEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.EventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.local.LocalAddress;
+import io.grpc.netty.shaded.io.netty.channel.local.LocalChannel;
+import io.grpc.netty.shaded.io.netty.channel.local.LocalServerChannel;
+import io.grpc.netty.shaded.io.netty.channel.nio.NioEventLoopGroup;
+import io.grpc.netty.shaded.io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the gRPC servers of a {@link SeekersServer} from the transport section of the config. The transport decides
+ * which executor runs the calls, which event loops serve the sockets and which listeners are opened besides the TCP
+ * port. It owns the executor and event loops it created and releases them on {@link #shutdown()}.
+ * <p>
+ * Drivers run on the same host as the server, so they may connect over a Unix domain socket instead of TCP loopback.
+ * The socket needs the native epoll transport and is skipped where it is not available.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class Transport {
+    private static final Logger logger = LoggerFactory.getLogger(Transport.class);
+
+    // Event loops of all in-process and socket clients of this JVM
+    private static @Nullable EventLoopGroup clients;
+    private static @Nullable EventLoopGroup sockets;
+
+    private final @Nonnull Properties properties;
+    private final @Nonnull List<EventLoopGroup> groups = new ArrayList<>();
+    private @Nullable ExecutorService executor;
+    private @Nullable Path socket;
+
+    public Transport(@Nonnull Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Builds a server for every configured listener. All servers serve the same services.
+     *
+     * @param services the services of the servers
+     * @return the servers, the TCP server first
+     */
+    @Nonnull
+    List<Server> build(@Nonnull List<ServerServiceDefinition> services) {
+        List<Server> servers = new ArrayList<>();
+        servers.add(configure(tcp(), services).build());
+        if (!properties.getSocket().isEmpty()) {
+            if (Epoll.isAvailable()) {
+                servers.add(configure(socket(), services).build());
+            } else {
+                logger.warn("Unix domain sockets need the native epoll transport, skip socket {}",
+                        properties.getSocket());
+            }
+        }
+        if (!properties.getInProcess().isEmpty()) {
+            EventLoopGroup group = own(new DefaultEventLoopGroup(1, threads("seekers-in-process-%d")));
+            servers.add(configure(NettyServerBuilder.forAddress(new LocalAddress(properties.getInProcess()))
+                    .channelFactory(LocalListener::new).bossEventLoopGroup(group).workerEventLoopGroup(group),
+                    services).build());
+        }
+        return servers;
+    }
+
+    /**
+     * Creates the builder of the TCP listener. The native epoll transport is used if it is enabled and available,
+     * otherwise NIO.
+     */
+    private NettyServerBuilder tcp() {
+        NettyServerBuilder builder = NettyServerBuilder.forPort(properties.getPort());
+        if (properties.isEpoll() && Epoll.isAvailable()) {
+            logger.debug("Use native epoll transport");
+            builder.channelType(EpollServerSocketChannel.class)
+                    .bossEventLoopGroup(own(new EpollEventLoopGroup(1, threads("seekers-boss-%d"))))
+                    .workerEventLoopGroup(own(new EpollEventLoopGroup(properties.getEventLoops(),
+                            threads("seekers-worker-%d"))));
+        } else {
+            if (properties.isEpoll()) logger.info("Native epoll transport is not available, use NIO instead");
+            if (properties.getEventLoops() > 0) {
+                builder.channelType(NioServerSocketChannel.class)
+                        .bossEventLoopGroup(own(new NioEventLoopGroup(1, threads("seekers-boss-%d"))))
+                        .workerEventLoopGroup(own(new NioEventLoopGroup(properties.getEventLoops(),
+                                threads("seekers-worker-%d"))));
+            }
+        }
+        if (properties.getKeepAliveTime() > 0) {
+            builder.keepAliveTime(properties.getKeepAliveTime(), TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(properties.getKeepAliveTimeout(), TimeUnit.MILLISECONDS);
+        }
+        return builder.permitKeepAliveTime(properties.getPermitKeepAliveTime(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates the builder of the Unix domain socket listener. A file left over at the path by an earlier server is
+     * removed, as the socket could not be bound otherwise.
+     */
+    private NettyServerBuilder socket() {
+        Path path = Path.of(properties.getSocket()).toAbsolutePath();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not remove old socket {}", path, e);
+        }
+        socket = path;
+        EventLoopGroup group = own(new EpollEventLoopGroup(1, threads("seekers-socket-%d")));
+        return NettyServerBuilder.forAddress(new DomainSocketAddress(path.toFile()))
+                .channelType(EpollServerDomainSocketChannel.class).bossEventLoopGroup(group)
+                .workerEventLoopGroup(group);
+    }
+
+    /**
+     * Applies the settings that are shared by all listeners.
+     */
+    private NettyServerBuilder configure(NettyServerBuilder builder, List<ServerServiceDefinition> services) {
+        switch (properties.getExecutor()) {
+            case FIXED:
+                if (executor == null) {
+                    int threads = properties.getThreads() > 0 ? properties.getThreads()
+                            : Runtime.getRuntime().availableProcessors();
+                    executor = Executors.newFixedThreadPool(threads, threads("seekers-call-%d"));
+                }
+                builder.executor(executor);
+                break;
+            case DIRECT:
+                builder.directExecutor();
+                break;
+            default:
+                break;
+        }
+        builder.maxInboundMessageSize(properties.getMaxInboundMessageSize());
+        for (ServerServiceDefinition service : services) builder.addService(service);
+        return builder;
+    }
+
+    private EventLoopGroup own(EventLoopGroup group) {
+        groups.add(group);
+        return group;
+    }
+
+    private static ThreadFactory threads(String format) {
+        return new ThreadFactoryBuilder().setNameFormat(format).setDaemon(true).build();
+    }
+
+    /**
+     * Releases the executor and event loops of the transport. Must be called after its servers terminated.
+     */
+    void shutdown() {
+        if (executor != null) executor.shutdown();
+        for (EventLoopGroup group : groups) {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+        groups.clear();
+        if (socket != null) {
+            try {
+                Files.deleteIfExists(socket);
+            } catch (IOException e) {
+                logger.warn("Could not remove socket {}", socket, e);
+            }
+        }
+    }
+
+    /**
+     * @return the absolute path of the Unix domain socket, or null if the transport does not listen on a socket
+     */
+    @Nullable
+    public Path getSocket() {
+        return socket;
+    }
+
+    /**
+     * Opens a channel to the in-process listener of a server in the same JVM. The channel does not use any socket, but
+     * still serializes the messages.
+     *
+     * @param name the name of the in-process listener
+     * @return the channel, which must be shut down by the caller
+     */
+    @Nonnull
+    public static ManagedChannel inProcessChannel(@Nonnull String name) {
+        EventLoopGroup group;
+        synchronized (Transport.class) {
+            if (clients == null) clients = new DefaultEventLoopGroup(1, threads("seekers-in-process-client-%d"));
+            group = clients;
+        }
+        return NettyChannelBuilder.forAddress(new LocalAddress(name)).channelFactory(LocalConnection::new)
+                .eventLoopGroup(group).usePlaintext().build();
+    }
+
+    /**
+     * Local channel that ignores the socket options gRPC sets on every channel, instead of warning about each of them
+     * for every connection.
+     */
+    private static final class LocalConnection extends LocalChannel {
+        // Created lazily, as the constructor of the local channel already configures it
+        private @Nullable ChannelConfig config;
+
+        LocalConnection() {
+        }
+
+        LocalConnection(LocalServerChannel parent, LocalChannel peer) {
+            super(parent, peer);
+        }
+
+        @Override
+        public ChannelConfig config() {
+            if (config == null) {
+                config = new DefaultChannelConfig(this) {
+                    @Override
+                    public <T> boolean setOption(ChannelOption<T> option, T value) {
+                        return option == ChannelOption.SO_KEEPALIVE || super.setOption(option, value);
+                    }
+                };
+            }
+            return config;
+        }
+    }
+
+    /**
+     * Local listener that accepts {@link LocalConnection}s.
+     */
+    private static final class LocalListener extends LocalServerChannel {
+
+        @Override
+        protected LocalChannel newLocalChannel(LocalChannel peer) {
+            return new LocalConnection(this, peer);
+        }
+    }
+
+    /**
+     * Opens a channel to the Unix domain socket of a server on the same host. Needs the native epoll transport.
+     *
+     * @param path the path of the socket
+     * @return the channel, which must be shut down by the caller
+     */
+    @Nonnull
+    public static ManagedChannel socketChannel(@Nonnull Path path) {
+        EventLoopGroup group;
+        synchronized (Transport.class) {
+            if (sockets == null) sockets = new EpollEventLoopGroup(1, threads("seekers-socket-client-%d"));
+            group = sockets;
+        }
+        return NettyChannelBuilder.forAddress(new DomainSocketAddress(path.toFile()))
+                .channelType(EpollDomainSocketChannel.class).eventLoopGroup(group).usePlaintext().build();
+    }
+
+    @Nonnull
+    public Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Executors that run the calls of the server.
+     */
+    public enum Executor {
+        /**
+         * The unbounded cached thread pool of gRPC.
+         */
+        DEFAULT,
+        /**
+         * A bounded pool, calls wait in a queue if all threads are busy.
+         */
+        FIXED,
+        /**
+         * The event loop threads of the transport, without any hand-off. Only suitable as long as no call blocks.
+         */
+        DIRECT
+    }
+
+    /**
+     * Properties of the transport.
+     */
+    public static class Properties {
+
+        public static final String SECTION = "transport";
+
+        public static Properties from(Ini ini) {
+            Integer port = ini.fetch(SECTION, "port", Integer.class);
+            String executor = ini.fetch(SECTION, "executor");
+            Integer threads = ini.fetch(SECTION, "threads", Integer.class);
+            Integer eventLoops = ini.fetch(SECTION, "event-loops", Integer.class);
+            Boolean epoll = ini.fetch(SECTION, "epoll", Boolean.class);
+            Integer maxInboundMessageSize = ini.fetch(SECTION, "max-inbound-message-size", Integer.class);
+            Long keepAliveTime = ini.fetch(SECTION, "keepalive-time", Long.class);
+            Long keepAliveTimeout = ini.fetch(SECTION, "keepalive-timeout", Long.class);
+            Long permitKeepAliveTime = ini.fetch(SECTION, "permit-keepalive-time", Long.class);
+            String inProcess = ini.fetch(SECTION, "in-process");
+            String socket = ini.fetch(SECTION, "socket");
+            String sharedMemory = ini.fetch(SECTION, "shared-memory");
+            return new Properties(
+                    port != null ? port : 7777,
+                    executor != null && !executor.isBlank() ? Executor.valueOf(executor.strip()
+                            .toUpperCase(Locale.ROOT)) : Executor.DEFAULT,
+                    threads != null ? threads : 0,
+                    eventLoops != null ? eventLoops : 0,
+                    epoll == null || epoll,
+                    maxInboundMessageSize != null ? maxInboundMessageSize : 4 * 1024 * 1024,
+                    keepAliveTime != null ? keepAliveTime : 0,
+                    keepAliveTimeout != null ? keepAliveTimeout : 20_000,
+                    permitKeepAliveTime != null ? permitKeepAliveTime : 300_000,
+                    inProcess != null ? inProcess.strip() : "",
+                    socket != null ? socket.strip() : "",
+                    sharedMemory != null ? sharedMemory.strip() : ""
+            );
+        }
+
+        private final int port;
+        private final @Nonnull Executor executor;
+        private final int threads;
+        private final int eventLoops;
+        private final boolean epoll;
+        private final int maxInboundMessageSize;
+        private final long keepAliveTime;
+        private final long keepAliveTimeout;
+        private final long permitKeepAliveTime;
+        private final @Nonnull String inProcess;
+        private final @Nonnull String socket;
+        private final @Nonnull String sharedMemory;
+
+        public Properties(int port, @Nonnull Executor executor, int threads, int eventLoops, boolean epoll,
+                          int maxInboundMessageSize, long keepAliveTime, long keepAliveTimeout,
+                          long permitKeepAliveTime, @Nonnull String inProcess, @Nonnull String socket,
+                          @Nonnull String sharedMemory) {
+            Preconditions.checkArgument(port >= 0 && port <= 0xFFFF, "Invalid port: %s", port);
+            Preconditions.checkArgument(threads >= 0, "Negative number: %s", threads);
+            Preconditions.checkArgument(eventLoops >= 0, "Negative number: %s", eventLoops);
+            Preconditions.checkArgument(maxInboundMessageSize > 0, "Negative or zero number: %s",
+                    maxInboundMessageSize);
+            this.port = port;
+            this.executor = executor;
+            this.threads = threads;
+            this.eventLoops = eventLoops;
+            this.epoll = epoll;
+            this.maxInboundMessageSize = maxInboundMessageSize;
+            this.keepAliveTime = keepAliveTime;
+            this.keepAliveTimeout = keepAliveTimeout;
+            this.permitKeepAliveTime = permitKeepAliveTime;
+            this.inProcess = inProcess;
+            this.socket = socket;
+            this.sharedMemory = sharedMemory;
+        }
+
+        /**
+         * @return the TCP port of the server, 0 picks a free port
+         */
+        public int getPort() {
+            return port;
+        }
+
+        @Nonnull
+        public Executor getExecutor() {
+            return executor;
+        }
+
+        /**
+         * @return the number of threads of the fixed executor, 0 uses one per processor
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return the number of event loop threads of the TCP listener, 0 uses the default of the transport
+         */
+        public int getEventLoops() {
+            return eventLoops;
+        }
+
+        /**
+         * @return true if the native epoll transport should be used where it is available
+         */
+        public boolean isEpoll() {
+            return epoll;
+        }
+
+        /**
+         * @return the maximum size of a received message in bytes
+         */
+        public int getMaxInboundMessageSize() {
+            return maxInboundMessageSize;
+        }
+
+        /**
+         * @return the time in milliseconds without reads after which the server pings a client, 0 disables pings
+         */
+        public long getKeepAliveTime() {
+            return keepAliveTime;
+        }
+
+        /**
+         * @return the time in milliseconds the server waits for the answer to a ping before it closes the connection
+         */
+        public long getKeepAliveTimeout() {
+            return keepAliveTimeout;
+        }
+
+        /**
+         * @return the shortest time in milliseconds between pings of a client that the server accepts
+         */
+        public long getPermitKeepAliveTime() {
+            return permitKeepAliveTime;
+        }
+
+        /**
+         * @return the name of the in-process listener, or an empty string if there is none
+         */
+        @Nonnull
+        public String getInProcess() {
+            return inProcess;
+        }
+
+        /**
+         * @return the path of the Unix domain socket, or an empty string if there is none
+         */
+        @Nonnull
+        public String getSocket() {
+            return socket;
+        }
+
+        /**
+         * @return the folder of the shared memory files of the matches, or an empty string if memory is not shared
+         */
+        @Nonnull
+        public String getSharedMemory() {
+            return sharedMemory;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.server;
+
+import org.apiguardian.api.API;
+import org.ini4j.Ini;
+import org.seekers.core.Game;
+import org.seekers.core.Player;
+import org.seekers.core.Seeker;
+import org.seekers.core.Torus;
+import org.seekers.core.Vector2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Runs synthetic headless games before the server accepts players, so the first ticks of real matches do not run in
+ * the interpreter. Every tick takes the same paths as a tick of a match: random commands are applied through the
+ * inbox, the game is updated and the snapshot of the tick is built, serialized, packed and compared to the previous
+ * one. The ticks are timed in windows, and the warmup reports the steady state once the mean of several consecutive
+ * windows stopped changing.
+ *
+ * @author Karl Zschiebsch
+ * @since 0.1.0
+ */
+@API(since = "0.1.0", status = API.Status.EXPERIMENTAL)
+public class Warmup {
+    private static final Logger logger = LoggerFactory.getLogger(Warmup.class);
+
+    // Relative change of the mean between windows that counts as stable
+    private static final double TOLERANCE = 0.1;
+    // Consecutive stable windows of the steady state
+    private static final int STABLE = 3;
+
+    private final @Nonnull Properties properties;
+    private final @Nonnull Ini config;
+    private final @Nonnull Function<Ini, Game> creator;
+
+    /**
+     * @param properties the properties of the warmup
+     * @param config     the config of the games
+     * @param creator    creates the games, like the games of the matches
+     */
+    public Warmup(@Nonnull Properties properties, @Nonnull Ini config, @Nonnull Function<Ini, Game> creator) {
+        this.properties = properties;
+        this.config = config;
+        this.creator = creator;
+    }
+
+    /**
+     * Runs the configured number of ticks on the calling thread. A new game is created whenever the playtime of the
+     * current one is over.
+     *
+     * @return the timings of the warmup
+     */
+    @Nonnull
+    public Result run() {
+        Random random = new Random(0);
+        Match match = null;
+        double first = Double.NaN;
+        double previous = Double.NaN;
+        double mean = Double.NaN;
+        int stable = 0;
+        long steady = -1;
+        long elapsed = 0;
+        for (long tick = 1; tick <= properties.getTicks(); tick++) {
+            if (match == null || match.getGame().getPassedPlaytime() >= match.getGame().getProperties().getPlaytime()) {
+                match = new Match("warmup", creator.apply(config), List.of());
+                match.limit(config);
+            }
+            long start = System.nanoTime();
+            tick(match, random);
+            elapsed += System.nanoTime() - start;
+            if (tick % properties.getWindow() != 0) continue;
+
+            mean = elapsed / 1e3 / properties.getWindow();
+            elapsed = 0;
+            if (Double.isNaN(first)) first = mean;
+            stable = Math.abs(mean - previous) <= TOLERANCE * previous ? stable + 1 : 0;
+            previous = mean;
+            if (steady < 0 && stable >= STABLE) {
+                steady = tick;
+                logger.info("Warmup reached steady state after {} ticks with {} us per tick", tick,
+                        String.format("%.1f", mean));
+            }
+        }
+        Result result = new Result(properties.getTicks(), steady, first, mean);
+        if (steady < 0) logger.warn("Warmup did not reach steady state: {}", result);
+        return result;
+    }
+
+    /**
+     * Runs a tick of a match like a tick of the server.
+     */
+    private static void tick(@Nonnull Match match, @Nonnull Random random) {
+        Game game = match.getGame();
+        Torus.Properties map = game.getTorus().getProperties();
+        for (Seeker seeker : game.getSeekers()) {
+            if (random.nextInt(4) != 0) continue;
+            match.apply(seeker.getPlayer(), seeker.toString(), new Vector2D(random.nextDouble() * map.getWidth(),
+                    random.nextDouble() * map.getHeight()), random.nextInt(3) - 1);
+        }
+        long base = game.getPassedPlaytime();
+        game.updateAll();
+        Snapshot snapshot = match.snapshot();
+        snapshot.getUpdate(base);
+        snapshot.getEncoded(snapshot.getUpdate());
+        snapshot.getEncoded(snapshot.getPacked());
+        for (Player player : game.getPlayers()) {
+            match.keyframe(snapshot, player, false);
+        }
+    }
+
+    /**
+     * Timings of a warmup.
+     */
+    public static final class Result {
+        private final long ticks;
+        private final long steady;
+        private final double first;
+        private final double last;
+
+        Result(long ticks, long steady, double first, double last) {
+            this.ticks = ticks;
+            this.steady = steady;
+            this.first = first;
+            this.last = last;
+        }
+
+        /**
+         * @return the number of ticks of the warmup
+         */
+        public long getTicks() {
+            return ticks;
+        }
+
+        /**
+         * @return the tick after which the steady state was reached, or -1 if it was not reached
+         */
+        public long getSteadyTick() {
+            return steady;
+        }
+
+        /**
+         * @return the mean duration of the ticks of the first window in microseconds
+         */
+        public double getFirst() {
+            return first;
+        }
+
+        /**
+         * @return the mean duration of the ticks of the last window in microseconds
+         */
+        public double getLast() {
+            return last;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ticks, steady after %d, first %.1f us, last %.1f us per tick", ticks, steady,
+                    first, last);
+        }
+    }
+
+    public static class Properties {
+
+        public static final String SECTION = "warmup";
+
+        public static Properties from(Ini ini) {
+            Boolean enabled = ini.fetch(SECTION, "enabled", Boolean.class);
+            Integer ticks = ini.fetch(SECTION, "ticks", Integer.class);
+            Integer window = ini.fetch(SECTION, "window", Integer.class);
+            return new Properties(
+                    enabled != null && enabled,
+                    ticks != null ? ticks : 5000,
+                    window != null ? window : 100
+            );
+        }
+
+        private final boolean enabled;
+        private final int ticks;
+        private final int window;
+
+        public Properties(boolean enabled, int ticks, int window) {
+            if (ticks < 0) throw new IllegalArgumentException("Ticks must not be negative: " + ticks);
+            if (window < 1) throw new IllegalArgumentException("Window must have at least one tick: " + window);
+            this.enabled = enabled;
+            this.ticks = ticks;
+            this.window = window;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @return the number of synthetic ticks
+         */
+        public int getTicks() {
+            return ticks;
+        }
+
+        /**
+         * @return the number of ticks of a timing window
+         */
+        public int getWindow() {
+            return window;
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class App extends Application {
 
         Tournament tournament = new Tournament();
         tournament.matchAll(Path.of("external", "players").toFile());
-        server.playMatch(tournament.getMatches().get(0));
+        server.playTournament(tournament, 1);
 
         // server.playMatch(List.of("players/ai-undefined.py", "players/ai-tutorial.py"));
     }
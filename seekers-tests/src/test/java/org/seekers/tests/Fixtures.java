@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import io.grpc.ManagedChannel;
+import org.ini4j.Ini;
+import org.seekers.api.JoinRequest;
+import org.seekers.api.JoinResponse;
+import org.seekers.api.SeekersGrpc;
+import org.seekers.core.Game;
+import org.seekers.server.SeekersServer;
+import org.seekers.server.Transport;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared setup of the tests: the default config, games created from it and servers with an in-process channel.
+ */
+final class Fixtures {
+
+    private static final AtomicInteger listeners = new AtomicInteger();
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return the default config, with the TCP listener on an ephemeral port
+     */
+    static Ini config() throws IOException {
+        Ini config = new Ini(Game.class.getResourceAsStream("config.ini"));
+        config.put(Transport.Properties.SECTION, "port", 0);
+        return config;
+    }
+
+    /**
+     * @return a game created from the default config
+     */
+    static Game game() throws IOException {
+        return Game.create(config());
+    }
+
+    /**
+     * Starts a server with an in-process listener of a unique name and opens a channel to it.
+     *
+     * @param config the config of the server
+     * @return the started server, which must be closed by the caller
+     */
+    static Server server(Ini config) throws IOException {
+        String name = "test-" + listeners.incrementAndGet();
+        config.put(Transport.Properties.SECTION, "in-process", name);
+        SeekersServer server = new SeekersServer(config, Game::create);
+        server.start();
+        return new Server(server, Transport.inProcessChannel(name));
+    }
+
+    /**
+     * A started server and a channel to its in-process listener. Closing it shuts down the channel and stops the
+     * server.
+     */
+    static final class Server implements AutoCloseable {
+        private final SeekersServer server;
+        private final ManagedChannel channel;
+
+        private Server(SeekersServer server, ManagedChannel channel) {
+            this.server = server;
+            this.channel = channel;
+        }
+
+        SeekersServer get() {
+            return server;
+        }
+
+        ManagedChannel channel() {
+            return channel;
+        }
+
+        /**
+         * @return the response of a new player that joined the first match with a free slot
+         */
+        JoinResponse join() {
+            return SeekersGrpc.newBlockingStub(channel).join(JoinRequest.newBuilder().build());
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+            server.stop();
+        }
+    }
+}
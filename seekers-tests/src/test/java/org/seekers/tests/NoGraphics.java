@@ -35,6 +35,6 @@ public class NoGraphics {
 
         Tournament tournament = new Tournament();
         tournament.matchAll(Path.of("external", "players").toFile());
-        server.playMatch(tournament.getMatches().get(0));
+        server.playTournament(tournament, 1);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.ini4j.Ini;
+import org.seekers.api.CommandResponse;
+import org.seekers.core.Game;
+import org.seekers.server.Transformers;
+import org.seekers.server.proto.PackedState;
+
+import java.io.IOException;
+
+/**
+ * Compares the nested and the packed encoding of the state of games with many entities. Prints the size of a state and
+ * the time to encode and to parse it.
+ */
+public class PackedBenchmark {
+
+    private static final int ROUNDS = 200;
+
+    public static void main(String[] args) throws IOException {
+        for (int entities : new int[]{1_000, 10_000}) {
+            Ini config = new Ini(Game.class.getResourceAsStream("config.ini"));
+            config.put("global", "players", 2);
+            config.put("global", "seekers", entities / 4);
+            config.put("global", "goals", entities / 2);
+            config.put("map", "width", 7680);
+            config.put("map", "height", 7680);
+            Game game = Game.create(config);
+
+            byte[] nested = nested(game).toByteArray();
+            byte[] packed = Transformers.PACKED_TRANSFORMER.transform(game).toByteArray();
+            for (int i = 0; i < ROUNDS; i++) {
+                nested = nested(game).toByteArray();
+                packed = Transformers.PACKED_TRANSFORMER.transform(game).toByteArray();
+                CommandResponse.parseFrom(nested);
+                PackedState.parseFrom(packed);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) nested = nested(game).toByteArray();
+            long nestedEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) CommandResponse.parseFrom(nested);
+            long nestedParse = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) packed = Transformers.PACKED_TRANSFORMER.transform(game).toByteArray();
+            long packedEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ROUNDS; i++) PackedState.parseFrom(packed);
+            long packedParse = System.nanoTime() - start;
+
+            System.out.printf("%,d entities%n", game.getSeekers().size() + game.getGoals().size());
+            System.out.printf("  nested: %,9d bytes, encode %8.1f us, parse %8.1f us%n", nested.length,
+                    nestedEncode / 1e3 / ROUNDS, nestedParse / 1e3 / ROUNDS);
+            System.out.printf("  packed: %,9d bytes, encode %8.1f us, parse %8.1f us%n", packed.length,
+                    packedEncode / 1e3 / ROUNDS, packedParse / 1e3 / ROUNDS);
+        }
+    }
+
+    private static CommandResponse nested(Game game) {
+        return CommandResponse.newBuilder()
+                .addAllCamps(Transformers.CAMP_TRANSFORMER.transformAll(game.getCamps()))
+                .addAllPlayers(Transformers.PLAYER_TRANSFORMER.transformAll(game.getPlayers()))
+                .addAllSeekers(Transformers.SEEKER_TRANSFORMER.transformAll(game.getSeekers()))
+                .addAllGoals(Transformers.GOAL_TRANSFORMER.transformAll(game.getGoals())).build();
+    }
+}
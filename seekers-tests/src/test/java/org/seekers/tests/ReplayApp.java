@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import javafx.application.Application;
+import javafx.stage.Stage;
+import org.seekers.core.MatchReplay;
+import org.seekers.graphics.ReplayFX;
+
+import java.nio.file.Path;
+
+public class ReplayApp extends Application {
+
+    public static void main(String[] args) {
+        Application.launch(ReplayApp.class, args);
+    }
+
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        ReplayFX replay = new ReplayFX(new MatchReplay(Path.of(getParameters().getRaw().get(0))));
+        replay.play();
+    }
+}
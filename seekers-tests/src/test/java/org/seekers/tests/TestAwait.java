@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.JoinResponse;
+import org.seekers.server.Match;
+import org.seekers.server.proto.CommandBatch;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.StateUpdate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+class TestAwait {
+
+    @Test
+    void parked() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        Ini config = Fixtures.config();
+        config.put("global", "tick-duration", 200.0);
+        try (var fixture = Fixtures.server(config)) {
+            Match match = fixture.get().playMatch(List.of());
+            JoinResponse join = fixture.join();
+            var stub = SeekersStreamGrpc.newFutureStub(fixture.channel());
+            // A tick after the end of the game is never published, so the calls are parked until the next tick
+            CommandBatch batch = CommandBatch.newBuilder().setToken(join.getToken())
+                    .setTick(match.getGame().getProperties().getPlaytime()).build();
+            var first = stub.await(batch);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (match.getWaitingCount() == 0 && !first.isDone() && System.currentTimeMillis() < deadline)
+                Thread.sleep(1);
+            // A newer call of the same player completes the parked one
+            var second = stub.await(batch);
+            StateUpdate completed = first.get(1, TimeUnit.SECONDS);
+            Assertions.assertTrue(match.getWaitingCount() <= 1);
+            StateUpdate resumed = second.get(2, TimeUnit.SECONDS);
+            Assertions.assertTrue(resumed.getTick() > completed.getTick());
+            Assertions.assertEquals(0, match.getWaitingCount());
+        }
+    }
+}
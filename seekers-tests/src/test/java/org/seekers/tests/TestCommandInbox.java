@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.core.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+class TestCommandInbox {
+
+    @Test
+    void latest() throws IOException, InterruptedException {
+        Game game = Fixtures.game();
+        Seeker seeker = game.getSeekers().get(0);
+        Vector2D before = seeker.getTarget();
+
+        // Stays below the limit of pending commands of the player
+        int commands = CommandInbox.PENDING_PER_SEEKER * seeker.getPlayer().getSeekers().size() / 4 - 1;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < commands; j++) {
+                    game.getInbox().offer(seeker, new Vector2D(j, j), 0);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        game.getInbox().offer(seeker, new Vector2D(1, 2), 1);
+
+        Assertions.assertSame(before, seeker.getTarget());
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+        Assertions.assertTrue(game.getInbox().isEmpty());
+        Assertions.assertEquals(1, seeker.getTarget().getX());
+        Assertions.assertEquals(2, seeker.getTarget().getY());
+        Assertions.assertEquals(1, seeker.getMagnet());
+    }
+
+    @Test
+    void invalid() throws IOException {
+        Game game = Fixtures.game();
+        Seeker seeker = game.getSeekers().get(0);
+        game.getInbox().offer(seeker, new Vector2D(3, 4), 1);
+        game.getInbox().offer(seeker, new Vector2D(Double.NaN, 4), 1);
+
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+        Assertions.assertEquals(3, seeker.getTarget().getX());
+        Assertions.assertEquals(4, seeker.getTarget().getY());
+    }
+
+    @Test
+    void revert() throws IOException {
+        Game game = Fixtures.game();
+        Seeker seeker = game.getSeekers().get(0);
+        Vector2D before = seeker.getTarget();
+        double magnet = seeker.getMagnet();
+        game.getInbox().offer(seeker, new Vector2D(3, 4), 1);
+        // Sets the seeker back to its current values, which is the latest intent of the player
+        game.getInbox().offer(seeker, new Vector2D(before.getX(), before.getY()), magnet);
+
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+        Assertions.assertEquals(before.getX(), seeker.getTarget().getX());
+        Assertions.assertEquals(before.getY(), seeker.getTarget().getY());
+        Assertions.assertEquals(magnet, seeker.getMagnet());
+    }
+
+    @Test
+    void bounded() throws IOException {
+        Game game = Fixtures.game();
+        Seeker seeker = game.getSeekers().get(0);
+        Seeker other = game.getSeekers().stream().filter(s -> s.getPlayer() != seeker.getPlayer())
+                .findFirst().orElseThrow();
+        int limit = CommandInbox.PENDING_PER_SEEKER * seeker.getPlayer().getSeekers().size();
+        for (int i = 0; i < limit; i++) {
+            Assertions.assertTrue(game.getInbox().offer(seeker, new Vector2D(i, i), 0));
+        }
+        Assertions.assertFalse(game.getInbox().offer(seeker, new Vector2D(-1, -1), 0));
+        // The limit is per player
+        Assertions.assertTrue(game.getInbox().offer(other, new Vector2D(1, 1), 0));
+
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+        Assertions.assertEquals(limit - 1, seeker.getTarget().getX());
+        Assertions.assertTrue(game.getInbox().offer(seeker, new Vector2D(1, 1), 0));
+    }
+}
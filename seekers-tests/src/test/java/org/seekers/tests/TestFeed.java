@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.server.Feed;
+import org.seekers.server.Match;
+import org.seekers.server.SeekersServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class TestFeed {
+
+    @Test
+    void events() throws IOException, InterruptedException {
+        Ini config = Fixtures.config();
+        config.put(Feed.Properties.SECTION, "enabled", true);
+        config.put(Feed.Properties.SECTION, "port", 0);
+        try (var fixture = Fixtures.server(config)) {
+            SeekersServer server = fixture.get();
+            Match match = server.playMatch(List.of());
+            Assertions.assertNotNull(server.getFeed());
+            var connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getFeed().getPort() + "/feed/"
+                    + match.getId()).openConnection();
+            Assertions.assertEquals(200, connection.getResponseCode());
+            Assertions.assertTrue(connection.getContentType().startsWith("text/event-stream"));
+            try (var reader = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                    StandardCharsets.UTF_8))) {
+                String line;
+                do {
+                    line = reader.readLine();
+                } while (line != null && !line.startsWith("data: "));
+                Assertions.assertNotNull(line);
+                JsonObject state = JsonParser.parseString(line.substring("data: ".length())).getAsJsonObject();
+                Assertions.assertEquals(match.getGame().getSeekers().size(), state.getAsJsonArray("seekers").size());
+                Assertions.assertEquals(match.getGame().getGoals().size(), state.getAsJsonArray("goals").size());
+            }
+            connection.disconnect();
+
+            var missing = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getFeed().getPort()
+                    + "/feed/unknown").openConnection();
+            Assertions.assertEquals(404, missing.getResponseCode());
+        }
+    }
+}
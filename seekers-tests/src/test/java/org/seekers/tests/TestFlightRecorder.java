@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.core.Game;
+import org.seekers.core.State;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+class TestFlightRecorder {
+
+    @Test
+    void ticks() throws IOException, ParseException {
+        Configuration configuration = Configuration.create(Path.of("..", "seekers-server", "seekers.jfc"));
+        Game game = Fixtures.game();
+        game.setGameState(State.RUNNING);
+        Path file = Files.createTempFile("seekers", ".jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.start();
+            for (int i = 0; i < 10; i++) game.updateAll();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        // Games of other tests may still tick in other threads
+        long thread = Thread.currentThread().getId();
+        long ticks = events.stream().filter(event -> event.getEventType().getName().equals("org.seekers.Tick"))
+                .filter(event -> event.getThread() != null && event.getThread().getJavaThreadId() == thread)
+                .peek(event -> Assertions.assertTrue(event.getLong("collide") > 0)).count();
+        Assertions.assertEquals(10, ticks);
+    }
+}
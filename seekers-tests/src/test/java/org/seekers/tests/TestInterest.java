@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.CommandRequest;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.JoinResponse;
+import org.seekers.api.SeekersGrpc;
+import org.seekers.core.Game;
+import org.seekers.server.Interest;
+import org.seekers.server.Transport;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.ShareRequest;
+import org.seekers.server.proto.SpectateRequest;
+import org.seekers.server.proto.StateRequest;
+import org.seekers.server.proto.StateUpdate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class TestInterest {
+
+    @Test
+    void view() throws IOException, InterruptedException {
+        Path folder = Files.createTempDirectory("seekers");
+        Ini config = Fixtures.config();
+        config.put(Transport.Properties.SECTION, "shared-memory", folder.toString());
+        config.put(Interest.Properties.SECTION, "enabled", true);
+        config.put(Interest.Properties.SECTION, "radius", 1.0);
+        try (var fixture = Fixtures.server(config)) {
+            Game game = fixture.get().playMatch(List.of()).getGame();
+            JoinResponse join = fixture.join();
+            StateUpdate update = SeekersStreamGrpc.newBlockingStub(fixture.channel()).state(StateRequest.newBuilder()
+                    .setToken(join.getToken()).build());
+            CommandResponse view = CommandResponse.parseFrom(update.getState());
+            Assertions.assertEquals(game.getCamps().size(), view.getCampsCount());
+            Assertions.assertTrue(view.getSeekersList().stream()
+                    .allMatch(seeker -> seeker.getPlayerId().equals(join.getPlayerId())));
+            Assertions.assertEquals(game.getSeekers().size() + game.getGoals().size(), view.getSeekersCount()
+                    + view.getGoalsCount() + update.getSummary().getSeekersList().stream().mapToInt(i -> i).sum()
+                    + update.getSummary().getGoalsList().stream().mapToInt(i -> i).sum());
+
+            // Unary commands are answered with the view too
+            CommandResponse response = SeekersGrpc.newBlockingStub(fixture.channel()).command(CommandRequest
+                    .newBuilder().setToken(join.getToken()).build());
+            Assertions.assertTrue(response.getSeekersList().stream()
+                    .allMatch(seeker -> seeker.getPlayerId().equals(join.getPlayerId())));
+            Assertions.assertTrue(response.getSeekersCount() + response.getGoalsCount()
+                    < game.getSeekers().size() + game.getGoals().size());
+            // The full state is neither spectated nor shared
+            StatusRuntimeException spectate = Assertions.assertThrows(StatusRuntimeException.class, () ->
+                    SeekersStreamGrpc.newBlockingStub(fixture.channel()).spectate(SpectateRequest.newBuilder()
+                            .build()).hasNext());
+            Assertions.assertEquals(Status.Code.PERMISSION_DENIED, spectate.getStatus().getCode());
+            StatusRuntimeException share = Assertions.assertThrows(StatusRuntimeException.class, () ->
+                    SeekersStreamGrpc.newBlockingStub(fixture.channel()).share(ShareRequest.newBuilder()
+                            .setToken(join.getToken()).build()));
+            Assertions.assertEquals(Status.Code.UNAVAILABLE, share.getStatus().getCode());
+            try (var files = Files.list(folder)) {
+                Assertions.assertEquals(0, files.count());
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.core.*;
+
+import java.io.IOException;
+
+class TestLockstepClock {
+
+    @Test
+    void deadline() throws IOException, InterruptedException {
+        Game game = Fixtures.game();
+        LockstepClock clock = new LockstepClock(new LockstepClock.Properties(true, 50.0));
+        Player player = game.getPlayers().get(0);
+        clock.join(player);
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+
+        Thread arrival = new Thread(() -> {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            clock.arrive(player, game.getPassedPlaytime(), game.getPassedPlaytime());
+        });
+        arrival.start();
+        clock.await(game);
+        arrival.join();
+        LockstepClock.Latency latency = clock.getLatency(player);
+        Assertions.assertNotNull(latency);
+        Assertions.assertEquals(1, latency.getArrivals());
+        Assertions.assertEquals(0, latency.getMisses());
+        Assertions.assertTrue(latency.getMax() < 50.0);
+
+        game.updateAll();
+        long start = System.nanoTime();
+        clock.await(game);
+        Assertions.assertTrue(System.nanoTime() - start >= 50_000_000L);
+        latency = clock.getLatency(player);
+        Assertions.assertNotNull(latency);
+        Assertions.assertEquals(1, latency.getMisses());
+        Assertions.assertNull(clock.getLatency(game.getPlayers().get(1)));
+    }
+
+    @Test
+    void clamped() throws IOException, InterruptedException {
+        Game game = Fixtures.game();
+        LockstepClock clock = new LockstepClock(new LockstepClock.Properties(true, 50.0));
+        Player player = game.getPlayers().get(0);
+        clock.join(player);
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+
+        // A tick from the future only counts as the current one, so the clock waits for the next tick again
+        clock.arrive(player, Long.MAX_VALUE, game.getPassedPlaytime());
+        clock.await(game);
+        game.updateAll();
+        long start = System.nanoTime();
+        clock.await(game);
+        Assertions.assertTrue(System.nanoTime() - start >= 50_000_000L);
+        LockstepClock.Latency latency = clock.getLatency(player);
+        Assertions.assertNotNull(latency);
+        Assertions.assertEquals(1, latency.getArrivals());
+        Assertions.assertEquals(1, latency.getMisses());
+    }
+
+    @Test
+    void missing() throws IOException, InterruptedException {
+        Game game = Fixtures.game();
+        LockstepClock clock = new LockstepClock(new LockstepClock.Properties(true, 1000.0));
+        Player player = game.getPlayers().get(0);
+        clock.join(player);
+        game.setGameState(State.RUNNING);
+        game.updateAll();
+
+        // A batch without a tick responds to the current tick
+        clock.arrive(player, 0, game.getPassedPlaytime());
+        long start = System.nanoTime();
+        clock.await(game);
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L);
+        LockstepClock.Latency latency = clock.getLatency(player);
+        Assertions.assertNotNull(latency);
+        Assertions.assertEquals(1, latency.getArrivals());
+        Assertions.assertEquals(0, latency.getMisses());
+    }
+}
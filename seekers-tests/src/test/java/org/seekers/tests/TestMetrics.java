@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.core.Game;
+import org.seekers.core.LockstepClock;
+import org.seekers.core.State;
+import org.seekers.server.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+class TestMetrics {
+
+    @Test
+    void histogram() {
+        Metrics metrics = new Metrics(new Metrics.Properties(true, "127.0.0.1", 0));
+        Metrics.Histogram histogram = metrics.histogram("test_values", "Values", 1);
+        for (int i = 1; i <= 100_000; i++) histogram.record(i);
+        Assertions.assertEquals(100_000, histogram.getCount());
+        for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+            double expected = quantile * 100_000;
+            Assertions.assertEquals(expected, histogram.getQuantile(quantile), expected * 0.07);
+        }
+        Assertions.assertEquals(100_000, histogram.getQuantile(1));
+    }
+
+    @Test
+    void endpoint() throws IOException {
+        Metrics metrics = new Metrics(new Metrics.Properties(true, "127.0.0.1", 0));
+        metrics.counter("test_total", "Test counter", "player", "a\"b").add(3);
+        metrics.gauge("test_gauge", "Test gauge", () -> 7);
+        metrics.start();
+        try {
+            var connection = (HttpURLConnection) new URL("http://127.0.0.1:" + metrics.getPort() + "/metrics")
+                    .openConnection();
+            Assertions.assertEquals(200, connection.getResponseCode());
+            String body;
+            try (InputStream input = connection.getInputStream()) {
+                body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            Assertions.assertTrue(body.contains("# TYPE test_total counter\n"));
+            Assertions.assertTrue(body.contains("test_total{player=\"a\\\"b\"} 3.0\n"));
+            Assertions.assertTrue(body.contains("test_gauge 7.0\n"));
+        } finally {
+            metrics.stop();
+        }
+    }
+
+    @Test
+    void lockstep() throws IOException {
+        Metrics metrics = new Metrics(new Metrics.Properties(true, "127.0.0.1", 0));
+        Metrics.Histogram lateness = metrics.histogram("seekers_tick_lateness_seconds", "", 1e9);
+        Metrics.Histogram duration = metrics.histogram("seekers_tick_duration_seconds", "", 1e9);
+        Game game = Fixtures.game();
+        game.setClock(new LockstepClock(new LockstepClock.Properties(true, 100.0)));
+        metrics.measure(game);
+        game.setGameState(State.RUNNING);
+        for (int i = 0; i < 3; i++) game.updateAll();
+        Assertions.assertEquals(3, duration.getCount());
+        Assertions.assertEquals(0, lateness.getCount());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.JoinResponse;
+import org.seekers.core.Game;
+import org.seekers.core.Goal;
+import org.seekers.server.proto.Encoding;
+import org.seekers.server.proto.PackedState;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.StateRequest;
+
+import java.io.IOException;
+import java.util.List;
+
+class TestPacked {
+
+    @Test
+    void state() throws IOException, InterruptedException {
+        try (var fixture = Fixtures.server(Fixtures.config())) {
+            Game game = fixture.get().playMatch(List.of()).getGame();
+            JoinResponse join = fixture.join();
+            PackedState packed = SeekersStreamGrpc.newBlockingStub(fixture.channel()).state(StateRequest.newBuilder()
+                    .setToken(join.getToken()).setEncoding(Encoding.PACKED).build()).getPacked();
+            Assertions.assertEquals(game.getSeekers().size(), packed.getSeekerIdsCount());
+            Assertions.assertEquals(game.getGoals().size(), packed.getGoalXCount());
+            for (int i = 0; i < game.getSeekers().size(); i++) {
+                Assertions.assertEquals(game.getSeekers().get(i).getId(), packed.getSeekerIds(i));
+                Assertions.assertEquals((float) game.getSeekers().get(i).getPosition().getX(), packed.getSeekerX(i));
+                Assertions.assertEquals(game.getPlayers().indexOf(game.getSeekers().get(i).getPlayer()),
+                        packed.getSeekerPlayers(i));
+            }
+            for (int i = 0; i < game.getCamps().size(); i++) {
+                Assertions.assertEquals(game.getPlayers().indexOf(game.getCamps().get(i).getPlayer()),
+                        packed.getCampPlayers(i));
+            }
+            for (int i = 0; i < game.getGoals().size(); i++) {
+                Goal goal = game.getGoals().get(i);
+                Assertions.assertEquals(goal.getCapture() != null ? game.getCamps().indexOf(goal.getCapture()) : -1,
+                        packed.getGoalCamps(i));
+            }
+        }
+    }
+}
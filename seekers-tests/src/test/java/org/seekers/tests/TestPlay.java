@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.JoinResponse;
+import org.seekers.core.Player;
+import org.seekers.server.Match;
+import org.seekers.server.proto.CommandBatch;
+import org.seekers.server.proto.PlayUpdate;
+import org.seekers.server.proto.SeekersStreamGrpc;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+class TestPlay {
+
+    @Test
+    void acknowledgements() throws IOException, InterruptedException {
+        Ini config = Fixtures.config();
+        config.put("global", "tick-duration", 1.0);
+        try (var fixture = Fixtures.server(config)) {
+            Match match = fixture.get().playMatch(List.of());
+            JoinResponse join = fixture.join();
+            AtomicReference<ClientCallStreamObserver<CommandBatch>> call = new AtomicReference<>();
+            List<PlayUpdate> updates = new CopyOnWriteArrayList<>();
+            StreamObserver<CommandBatch> batches = SeekersStreamGrpc.newStub(fixture.channel()).play(
+                    new ClientResponseObserver<CommandBatch, PlayUpdate>() {
+                        @Override
+                        public void beforeStart(ClientCallStreamObserver<CommandBatch> requestStream) {
+                            requestStream.disableAutoRequestWithInitial(0);
+                            call.set(requestStream);
+                        }
+
+                        @Override
+                        public void onNext(PlayUpdate value) {
+                            updates.add(value);
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                        }
+                    });
+            // The acknowledgements are held back while the client reads nothing, but none of them may be replaced
+            int sent = 5;
+            for (int i = 0; i < sent; i++) {
+                batches.onNext(CommandBatch.newBuilder().setToken(join.getToken()).setTick(i + 1).build());
+            }
+            Player player = match.getGame().getPlayers().stream()
+                    .filter(candidate -> candidate.toString().equals(join.getPlayerId())).findFirst().orElseThrow();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (match.getDropped(player) == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            Assertions.assertTrue(match.getDropped(player) > 0);
+            call.get().request(Integer.MAX_VALUE);
+            deadline = System.currentTimeMillis() + 5000;
+            while (updates.stream().filter(PlayUpdate::hasAck).count() < sent
+                    && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            long[] acks = updates.stream().filter(PlayUpdate::hasAck)
+                    .mapToLong(update -> update.getAck().getRespondsTo()).toArray();
+            Assertions.assertArrayEquals(new long[]{1, 2, 3, 4, 5}, acks);
+            Assertions.assertTrue(updates.stream().anyMatch(PlayUpdate::hasState));
+            batches.onCompleted();
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.seekers.core.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+class TestReplay {
+
+    private static final int KEYFRAME_INTERVAL = 10;
+    // Half of a quantization step of the recorder
+    private static final double POSITION_ERROR = 0.5 / 64;
+    private static final double VELOCITY_ERROR = 0.5 / 1024;
+
+    @TempDir
+    Path folder;
+
+    private static void play(Game game) {
+        Random random = new Random(42);
+        game.setGameState(State.RUNNING);
+        while (game.getGameState() == State.RUNNING) {
+            for (Seeker seeker : game.getSeekers()) {
+                if (random.nextInt(20) == 0) {
+                    seeker.changeTarget(game.getTorus().getRandomPosition(random));
+                    seeker.changeMagnet(random.nextInt(3) - 1);
+                }
+            }
+            game.updateAll();
+        }
+    }
+
+    /**
+     * Values of all entities at the start of a game and after every tick, captured while it is recorded. The values of
+     * a tick are found at its index.
+     */
+    private static List<double[]> capture(Game game, List<Long> hashes) {
+        List<double[]> ticks = new ArrayList<>();
+        Consumer<Game> listener = instance -> {
+            hashes.add(game.getStateHash());
+            double[] values = new double[(game.getSeekers().size() + game.getGoals().size()) * 4
+                    + game.getPlayers().size()];
+            int i = 0;
+            for (Physical<?> physical : game.getSeekers()) i = physical(physical, values, i);
+            for (Physical<?> physical : game.getGoals()) i = physical(physical, values, i);
+            for (Player player : game.getPlayers()) values[i++] = player.getScore();
+            ticks.add(values);
+        };
+        game.setOnGameStarted(listener);
+        game.setOnGameTicked(listener);
+        return ticks;
+    }
+
+    private static int physical(Physical<?> physical, double[] values, int i) {
+        values[i++] = physical.getPosition().getX();
+        values[i++] = physical.getPosition().getY();
+        values[i++] = physical.getVelocity().getX();
+        values[i++] = physical.getVelocity().getY();
+        return i;
+    }
+
+    /**
+     * Asserts that the game holds the captured values within the quantization of the recorder.
+     */
+    private static void assertState(double[] expected, Game game) {
+        double[] actual = new double[expected.length];
+        int i = 0;
+        for (Physical<?> physical : game.getSeekers()) i = physical(physical, actual, i);
+        for (Physical<?> physical : game.getGoals()) i = physical(physical, actual, i);
+        for (Player player : game.getPlayers()) actual[i++] = player.getScore();
+        for (int j = 0; j < expected.length; j++) {
+            boolean score = j >= expected.length - game.getPlayers().size();
+            double tolerance = score ? 0 : j % 4 < 2 ? POSITION_ERROR : VELOCITY_ERROR;
+            Assertions.assertEquals(expected[j], actual[j], tolerance, "value " + j);
+        }
+    }
+
+    private Ini config() throws IOException {
+        Ini config = Fixtures.config();
+        config.put("global", "playtime", 300);
+        config.put("recorder", "keyframe-interval", KEYFRAME_INTERVAL);
+        return config;
+    }
+
+    @Test
+    void record() throws IOException {
+        Ini config = config();
+        Game game = Game.create(config, 7);
+        Path path = folder.resolve("match.skr");
+        List<double[]> ticks;
+        try (MatchRecorder recorder = new MatchRecorder(game, config, path)) {
+            ticks = capture(game, new ArrayList<>());
+            play(game);
+            Assertions.assertEquals(ticks.size(), recorder.getRecordedTicks());
+        }
+
+        // The initial state is recorded as a keyframe of tick 0
+        MatchReplay replay = new MatchReplay(path);
+        Assertions.assertEquals(0, replay.getFirstTick());
+        Assertions.assertEquals(ticks.size() - 1, replay.getLastTick());
+        Assertions.assertEquals((ticks.size() + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL, replay.getKeyframes());
+        for (int i = 0; i < replay.getKeyframes(); i++) {
+            Assertions.assertEquals((long) i * KEYFRAME_INTERVAL, replay.getKeyframeTick(i));
+        }
+        Game view = replay.createGame();
+        for (int tick = 0; tick < ticks.size(); tick++) {
+            Assertions.assertTrue(replay.hasNext());
+            replay.next();
+            Assertions.assertEquals(tick, replay.getTick());
+            replay.apply(view);
+            assertState(ticks.get(tick), view);
+        }
+        Assertions.assertFalse(replay.hasNext());
+    }
+
+    @Test
+    void seek() throws IOException {
+        Ini config = config();
+        Game game = Game.create(config, 11);
+        Path path = folder.resolve("match.skr");
+        List<Long> hashes = new ArrayList<>();
+        List<double[]> ticks;
+        try (MatchRecorder ignored = new MatchRecorder(game, config, path)) {
+            ticks = capture(game, hashes);
+            play(game);
+        }
+
+        MatchReplay replay = new MatchReplay(path);
+        Game view = replay.createGame();
+        // Forward over several keyframes, backward before the current keyframe, within and onto keyframes, and back to
+        // the start of the match
+        for (long target : new long[]{157, 23, 41, 40, 31, 300, 1, 200, 195, 0}) {
+            replay.seek(target);
+            Assertions.assertEquals(target, replay.getTick());
+            Assertions.assertEquals(hashes.get((int) target), replay.getStateHash());
+            replay.apply(view);
+            assertState(ticks.get((int) target), view);
+            Assertions.assertEquals(target, view.getPassedPlaytime());
+            Assertions.assertEquals(hashes.get((int) target), view.getStateHash());
+        }
+    }
+
+    @Test
+    void truncated() throws IOException {
+        Ini config = config();
+        Game game = Game.create(config, 13);
+        Path path = folder.resolve("match.skr");
+        List<Long> hashes = new ArrayList<>();
+        try (MatchRecorder ignored = new MatchRecorder(game, config, path)) {
+            capture(game, hashes);
+            play(game);
+        }
+        // Cut the footer and half of the frames, the last frame is cut in the middle
+        byte[] bytes = Files.readAllBytes(path);
+        Path cut = folder.resolve("cut.skr");
+        Files.write(cut, Arrays.copyOf(bytes, bytes.length / 2 + 3));
+
+        MatchReplay replay = new MatchReplay(cut);
+        Assertions.assertTrue(replay.getLastTick() > KEYFRAME_INTERVAL);
+        Assertions.assertTrue(replay.getLastTick() < hashes.size());
+        Assertions.assertEquals((replay.getLastTick() + KEYFRAME_INTERVAL) / KEYFRAME_INTERVAL,
+                replay.getKeyframes());
+        long tick = -1;
+        while (replay.hasNext()) {
+            replay.next();
+            Assertions.assertEquals(++tick, replay.getTick());
+            Assertions.assertEquals(hashes.get((int) tick), replay.getStateHash());
+        }
+        Assertions.assertEquals(replay.getLastTick(), tick);
+        replay.seek(KEYFRAME_INTERVAL + 5);
+        Assertions.assertEquals(KEYFRAME_INTERVAL + 5, replay.getTick());
+    }
+
+    @Test
+    void inputs() throws IOException {
+        Ini config = Fixtures.config();
+        Game game = Game.create(config);
+        Path path = folder.resolve("match.ski");
+        try (InputRecorder ignored = new InputRecorder(game, config, path)) {
+            play(game);
+        }
+
+        InputReplay replay = new InputReplay(path);
+        Game simulated = replay.simulate();
+        Assertions.assertTrue(replay.matches(simulated));
+        Assertions.assertEquals(game.getStateHash(), simulated.getStateHash());
+        Assertions.assertEquals(game.getPlayers().get(0).getScore(), simulated.getPlayers().get(0).getScore());
+    }
+
+    @Test
+    void unfinishedInputs() throws IOException {
+        Ini config = Fixtures.config();
+        Game game = Game.create(config);
+        Path path = folder.resolve("match.ski");
+        try (InputRecorder ignored = new InputRecorder(game, config, path)) {
+            play(game);
+        }
+        // Rewrite the recording without its end marker and trailer, as if the recorder was never closed
+        byte[] bytes;
+        try (InputStream input = new InflaterInputStream(Files.newInputStream(path))) {
+            bytes = input.readAllBytes();
+        }
+        Path cut = folder.resolve("cut.ski");
+        try (OutputStream output = new DeflaterOutputStream(Files.newOutputStream(cut))) {
+            output.write(bytes, 0, bytes.length - Short.BYTES - 2 * Long.BYTES);
+        }
+
+        InputReplay replay = new InputReplay(cut);
+        IOException missing = Assertions.assertThrows(IOException.class, replay::getTicks);
+        Assertions.assertTrue(missing.getMessage().contains("no end"));
+        Assertions.assertThrows(IOException.class, replay::getStateHash);
+        Game simulated = replay.simulate();
+        Assertions.assertEquals(game.getPassedPlaytime(), simulated.getPassedPlaytime());
+        Assertions.assertEquals(game.getStateHash(), simulated.getStateHash());
+    }
+}
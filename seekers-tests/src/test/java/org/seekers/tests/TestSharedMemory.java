@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import com.google.common.hash.Hashing;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.JoinResponse;
+import org.seekers.core.Game;
+import org.seekers.server.CommandRing;
+import org.seekers.server.SharedState;
+import org.seekers.server.Transport;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.ShareRequest;
+import org.seekers.server.proto.ShareResponse;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+class TestSharedMemory {
+
+    @Test
+    void share() throws IOException, InterruptedException {
+        Path folder = Files.createTempDirectory("seekers");
+        Ini config = Fixtures.config();
+        config.put(Transport.Properties.SECTION, "shared-memory", folder.toString());
+        try (var fixture = Fixtures.server(config)) {
+            Game game = fixture.get().playMatch(List.of()).getGame();
+            JoinResponse join = fixture.join();
+            ShareResponse share = SeekersStreamGrpc.newBlockingStub(fixture.channel())
+                    .share(ShareRequest.newBuilder().setToken(join.getToken()).build());
+            // The ring can only be found with the token and only be written by the owner
+            Path commands = Path.of(share.getCommands());
+            Assertions.assertEquals(Hashing.sha256().hashString(join.getToken(), StandardCharsets.UTF_8)
+                    + ".commands", commands.getFileName().toString());
+            if (Files.getFileStore(commands).supportsFileAttributeView("posix")) {
+                Assertions.assertEquals(PosixFilePermissions.fromString("rw-------"),
+                        Files.getPosixFilePermissions(commands));
+                Assertions.assertEquals(PosixFilePermissions.fromString("rw-------"),
+                        Files.getPosixFilePermissions(Path.of(share.getState())));
+            }
+            // A ring file created by another process is never attached
+            JoinResponse other = fixture.join();
+            Files.createFile(folder.resolve(Hashing.sha256().hashString(other.getToken(), StandardCharsets.UTF_8)
+                    + ".commands"));
+            StatusRuntimeException refused = Assertions.assertThrows(StatusRuntimeException.class, () ->
+                    SeekersStreamGrpc.newBlockingStub(fixture.channel()).share(ShareRequest.newBuilder()
+                            .setToken(other.getToken()).build()));
+            Assertions.assertEquals(Status.Code.ALREADY_EXISTS, refused.getStatus().getCode());
+            // Neither is an existing state file
+            Assertions.assertThrows(FileAlreadyExistsException.class, () ->
+                    new SharedState(game, Path.of(share.getState())));
+
+            MappedByteBuffer mapped;
+            try (FileChannel file = FileChannel.open(Path.of(share.getState()), StandardOpenOption.READ)) {
+                mapped = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            }
+            ByteBuffer state = ByteBuffer.allocate(mapped.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+            SharedState.read(mapped, state);
+            Assertions.assertEquals(SharedState.MAGIC, state.getInt(0));
+
+            // The first seeker of the player, seekers start after the players and camps
+            int players = state.getInt(24), camps = state.getInt(28), seekers = state.getInt(32);
+            int seeker = -1;
+            for (int i = 0; i < seekers && seeker < 0; i++) {
+                if (state.getInt(40 + players * 8 + camps * 40 + i * 80) == share.getPlayer()) seeker = i;
+            }
+            int offset = 40 + players * 8 + camps * 40 + seeker * 80;
+            try (CommandRing ring = CommandRing.open(Path.of(share.getCommands()))) {
+                Assertions.assertTrue(ring.offer(seeker, 12, 34, 1));
+                long deadline = System.currentTimeMillis() + 5000;
+                do {
+                    Thread.sleep(10);
+                    SharedState.read(mapped, state);
+                    // A disabled seeker ignores the magnet, the command is repeated until it was applied to an
+                    // enabled seeker
+                    if (state.getDouble(offset + 56) == 12 && state.getDouble(offset + 72) != 1
+                            && state.getInt(offset + 4) != 0) ring.offer(seeker, 12, 34, 1);
+                } while ((state.getDouble(offset + 56) != 12 || state.getDouble(offset + 72) != 1)
+                        && System.currentTimeMillis() < deadline);
+            }
+            Assertions.assertEquals(12, state.getDouble(offset + 56));
+            Assertions.assertEquals(34, state.getDouble(offset + 64));
+            Assertions.assertEquals(1, state.getDouble(offset + 72));
+        }
+    }
+}
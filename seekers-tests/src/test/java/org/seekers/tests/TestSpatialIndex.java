@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.core.SpatialIndex;
+import org.seekers.core.Torus;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+class TestSpatialIndex {
+
+    @Test
+    void query() {
+        Torus torus = new Torus(new Torus.Properties(768, 512));
+        Random random = new Random(42);
+        double[] xs = new double[1000];
+        double[] ys = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextDouble() * 768;
+            ys[i] = random.nextDouble() * 512;
+        }
+        SpatialIndex index = new SpatialIndex(torus, 50);
+        index.build(xs.length, i -> xs[i], i -> ys[i]);
+
+        // Near the corner, so the queries wrap around both edges
+        for (double radius : new double[]{10, 50, 120, 1000}) {
+            Set<Integer> found = new HashSet<>();
+            index.query(5, 500, radius, i -> Assertions.assertTrue(found.add(i)));
+            for (int i = 0; i < xs.length; i++) {
+                Assertions.assertEquals(torus.getDistance(5, 500, xs[i], ys[i]) <= radius, found.contains(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.CommandRequest;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.JoinResponse;
+import org.seekers.api.SeekersGrpc;
+import org.seekers.server.Match;
+import org.seekers.server.proto.Encoding;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.SpectateRequest;
+import org.seekers.server.proto.StateUpdate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class TestSpectate {
+
+    @Test
+    void spectators() throws IOException, InterruptedException {
+        try (var fixture = Fixtures.server(Fixtures.config())) {
+            Match match = fixture.get().playMatch(List.of());
+            var stub = SeekersStreamGrpc.newBlockingStub(fixture.channel());
+            Iterator<StateUpdate> first = stub.spectate(SpectateRequest.newBuilder().build());
+            Iterator<StateUpdate> second = stub.spectate(SpectateRequest.newBuilder().setMatchId(match.getId())
+                    .build());
+            Assertions.assertEquals(match.getGame().getSeekers().size(),
+                    CommandResponse.parseFrom(first.next().getState()).getSeekersCount());
+            Assertions.assertEquals(match.getGame().getSeekers().size(),
+                    CommandResponse.parseFrom(second.next().getState()).getSeekersCount());
+            Assertions.assertEquals(0, match.getJoined());
+        }
+    }
+
+    @Test
+    void serialized() throws IOException, InterruptedException {
+        // The in-process listener is a local Netty channel, which serializes messages like a socket
+        try (var fixture = Fixtures.server(Fixtures.config())) {
+            Match match = fixture.get().playMatch(List.of());
+            JoinResponse join = fixture.join();
+            List<String> ids = new ArrayList<>();
+            for (var seeker : match.getGame().getSeekers()) ids.add(seeker.toString());
+            for (int i = 0; i < 3; i++) {
+                CommandResponse response = SeekersGrpc.newBlockingStub(fixture.channel()).command(CommandRequest
+                        .newBuilder().setToken(join.getToken()).build());
+                Assertions.assertEquals(ids, response.getSeekersList().stream()
+                        .map(seeker -> seeker.getPhysical().getId()).collect(Collectors.toList()));
+            }
+            var stub = SeekersStreamGrpc.newBlockingStub(fixture.channel());
+            Iterator<StateUpdate> first = stub.spectate(SpectateRequest.newBuilder().build());
+            Iterator<StateUpdate> second = stub.spectate(SpectateRequest.newBuilder().setEncoding(Encoding.PACKED)
+                    .build());
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertEquals(ids, CommandResponse.parseFrom(first.next().getState()).getSeekersList()
+                        .stream().map(seeker -> seeker.getPhysical().getId()).collect(Collectors.toList()));
+                Assertions.assertEquals(ids.size(), second.next().getPacked().getSeekerIdsCount());
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.JoinResponse;
+import org.seekers.core.Game;
+import org.seekers.core.Player;
+import org.seekers.server.Match;
+import org.seekers.server.proto.SeekersStreamGrpc;
+import org.seekers.server.proto.StateUpdate;
+import org.seekers.server.proto.SubscribeRequest;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+class TestSubscribe {
+
+    @Test
+    void states() throws IOException, InterruptedException {
+        try (var fixture = Fixtures.server(Fixtures.config())) {
+            Match match = fixture.get().playMatch(List.of());
+            JoinResponse join = fixture.join();
+            Game game = match.getGame();
+            Iterator<StateUpdate> updates = SeekersStreamGrpc.newBlockingStub(fixture.channel())
+                    .subscribe(SubscribeRequest.newBuilder().setToken(join.getToken()).build());
+            long tick = -1;
+            for (int i = 0; i < 3; i++) {
+                StateUpdate update = updates.next();
+                Assertions.assertTrue(update.getTick() > tick);
+                Assertions.assertEquals(game.getSeekers().size(),
+                        CommandResponse.parseFrom(update.getState()).getSeekersCount());
+                tick = update.getTick();
+            }
+        }
+    }
+
+    @Test
+    void slowClient() throws IOException, InterruptedException {
+        Ini config = Fixtures.config();
+        config.put("global", "tick-duration", 1.0);
+        try (var fixture = Fixtures.server(config)) {
+            Match match = fixture.get().playMatch(List.of());
+            JoinResponse join = fixture.join();
+            // Never requests a message, so the server can only write until the flow control window is full
+            SeekersStreamGrpc.newStub(fixture.channel()).subscribe(SubscribeRequest.newBuilder()
+                    .setToken(join.getToken()).build(), new ClientResponseObserver<SubscribeRequest, StateUpdate>() {
+                @Override
+                public void beforeStart(ClientCallStreamObserver<SubscribeRequest> requestStream) {
+                    requestStream.disableAutoRequestWithInitial(0);
+                }
+
+                @Override
+                public void onNext(StateUpdate value) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            });
+            Player player = match.getGame().getPlayers().stream()
+                    .filter(candidate -> candidate.toString().equals(join.getPlayerId())).findFirst().orElseThrow();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (match.getDropped(player) == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            Assertions.assertTrue(match.getDropped(player) > 0);
+        }
+    }
+}
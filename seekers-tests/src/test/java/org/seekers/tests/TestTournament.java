@@ -17,10 +17,17 @@
 
 package org.seekers.tests;
 
+import io.grpc.StatusRuntimeException;
+import org.ini4j.Ini;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.seekers.server.Match;
+import org.seekers.server.SeekersServer;
 import org.seekers.server.Tournament;
 
+import java.io.IOException;
+import java.util.List;
+
 class TestTournament {
 
     @Test
@@ -37,4 +44,32 @@ class TestTournament {
         Tournament tournament = new Tournament();
         System.err.println(tournament.getMeta());
     }
+
+    @Test
+    void schedule() throws IOException, InterruptedException {
+        Ini config = Fixtures.config();
+        config.put("global", "playtime", 20);
+        config.put("global", "tick-duration", 1.0);
+        try (var fixture = Fixtures.server(config)) {
+            SeekersServer server = fixture.get();
+            // The server keeps running between matches
+            for (int i = 0; i < 2; i++) {
+                Match match = server.playMatch(List.of());
+                long deadline = System.currentTimeMillis() + 5000;
+                while (server.getMatches().contains(match) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+                Assertions.assertFalse(server.getMatches().contains(match));
+                Thread.sleep(50);
+                Assertions.assertFalse(server.isTerminated());
+            }
+
+            // The tournament stops the server once its schedule is exhausted
+            Tournament tournament = new Tournament();
+            tournament.matchAll("A", "B", "C");
+            server.playTournament(tournament, 2);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!server.isTerminated() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            Assertions.assertTrue(server.isTerminated());
+            Assertions.assertThrows(StatusRuntimeException.class, fixture::join);
+        }
+    }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.netty.channel.epoll.Epoll;
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.seekers.api.CommandRequest;
+import org.seekers.api.CommandResponse;
+import org.seekers.api.JoinRequest;
+import org.seekers.api.JoinResponse;
+import org.seekers.api.SeekersGrpc;
+import org.seekers.core.Seeker;
+import org.seekers.server.Metrics;
+import org.seekers.server.SeekersServer;
+import org.seekers.server.Transport;
+import org.seekers.server.proto.CommandAck;
+import org.seekers.server.proto.CommandBatch;
+import org.seekers.server.proto.SeekerCommand;
+import org.seekers.server.proto.SeekersStreamGrpc;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+class TestTransport {
+
+    @Test
+    void inProcess() throws IOException, InterruptedException {
+        Ini config = Fixtures.config();
+        config.put(Transport.Properties.SECTION, "executor", "fixed");
+        config.put(Transport.Properties.SECTION, "threads", 2);
+        config.put(Metrics.Properties.SECTION, "enabled", true);
+        config.put(Metrics.Properties.SECTION, "port", 0);
+        try (var fixture = Fixtures.server(config)) {
+            SeekersServer server = fixture.get();
+            server.playMatch(List.of());
+            var stub = SeekersGrpc.newBlockingStub(fixture.channel());
+            JoinResponse join = stub.join(JoinRequest.newBuilder().build());
+            CommandResponse response = stub.command(CommandRequest.newBuilder().setToken(join.getToken()).build());
+            Assertions.assertEquals(config.get("global", "seekers", int.class)
+                    * config.get("global", "players", int.class), response.getSeekersCount());
+            // A command sent through the executor of the transport reaches the game
+            String seekerId = response.getSeekersList().stream()
+                    .filter(seeker -> seeker.getPlayerId().equals(join.getPlayerId())).findFirst().orElseThrow()
+                    .getPhysical().getId();
+            CommandAck ack = SeekersStreamGrpc.newBlockingStub(fixture.channel()).command(CommandBatch.newBuilder()
+                    .setToken(join.getToken()).addCommands(SeekerCommand.newBuilder().setSeekerId(seekerId)
+                            .setTargetX(12).setTargetY(34).setMagnet(1)).build());
+            Assertions.assertEquals(1, ack.getChanged());
+            Seeker seeker = server.getMatches().get(0).getGame().getSeeker(seekerId);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (seeker.getMagnet() != 1 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+            Assertions.assertEquals(12, seeker.getTarget().getX());
+            Assertions.assertEquals(34, seeker.getTarget().getY());
+            Assertions.assertTrue(server.getPort() > 0);
+            Assertions.assertNotNull(server.getMetrics());
+            StringBuilder metrics = new StringBuilder();
+            server.getMetrics().write(metrics);
+            Assertions.assertTrue(metrics.toString().contains("seekers_rpc_duration_seconds_count{method=\""));
+            Assertions.assertTrue(metrics.toString().contains("seekers_snapshot_bytes_count 1.0"));
+        }
+    }
+
+    @Test
+    void socket() throws IOException, InterruptedException {
+        Assumptions.assumeTrue(Epoll.isAvailable());
+        Path folder = Files.createTempDirectory("seekers");
+        Ini config = Fixtures.config();
+        config.put(Transport.Properties.SECTION, "socket", folder.resolve("seekers.sock").toString());
+        try (var fixture = Fixtures.server(config)) {
+            SeekersServer server = fixture.get();
+            Assertions.assertNotNull(server.getSocket());
+            ManagedChannel channel = Transport.socketChannel(server.getSocket());
+            try {
+                server.playMatch(List.of());
+                JoinResponse join = SeekersGrpc.newBlockingStub(channel).join(JoinRequest.newBuilder().build());
+                Assertions.assertFalse(join.getToken().isEmpty());
+            } finally {
+                channel.shutdownNow().awaitTermination(1, TimeUnit.SECONDS);
+            }
+        }
+        Assertions.assertFalse(Files.exists(folder.resolve("seekers.sock")));
+        Files.delete(folder);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2022  Seekers Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.seekers.tests;
+
+import org.ini4j.Ini;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.seekers.core.Game;
+import org.seekers.server.Warmup;
+
+import java.io.IOException;
+
+class TestWarmup {
+
+    @Test
+    void run() throws IOException {
+        Ini config = Fixtures.config();
+        config.put("global", "playtime", 500);
+        Warmup.Result result = new Warmup(new Warmup.Properties(true, 1200, 100), config, Game::create).run();
+        Assertions.assertEquals(1200, result.getTicks());
+        Assertions.assertTrue(result.getFirst() > 0);
+        Assertions.assertTrue(result.getLast() > 0);
+    }
+}